@@ -0,0 +1,82 @@
+package com.firstclub.membership.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.firstclub.membership.dto.Benefits;
+import com.firstclub.membership.service.TierSnapshot;
+
+/**
+ * Tier eligibility ({@code calculateEligibleTier}) and benefit lookup against the in-memory snapshot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EligibilityBenchmark {
+
+    @Param({ "3", "30", "300" })
+    public int tierCount;
+
+    @Param({ "1000000" })
+    public int userCount;
+
+    private TierSnapshot snapshot;
+    private SyntheticData.Users users;
+    private Long[] storedTierIds;
+
+    @Setup
+    public void setUp() {
+        snapshot = TierSnapshot.build(1, SyntheticData.tiers(tierCount), SyntheticData::cohortId);
+        users = SyntheticData.users(userCount, tierCount);
+        storedTierIds = new Long[userCount];
+        for (int i = 0; i < userCount; i++) {
+            int rank = snapshot.eligibleIndex(users.totalOrders[i], users.totalSpent[i], users.cohortMasks[i]);
+            storedTierIds[i] = snapshot.tierAt(rank).getId();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int advance(int size) {
+            int i = next;
+            next = i + 1 == size ? 0 : i + 1;
+            return i;
+        }
+    }
+
+    /** Full scan of the threshold arrays. */
+    @Benchmark
+    public int eligibleIndex(Cursor cursor) {
+        int i = cursor.advance(users.size());
+        return snapshot.eligibleIndex(users.totalOrders[i], users.totalSpent[i], users.cohortMasks[i]);
+    }
+
+    /** Stored tier validated by the O(1) boundary check, as reads do. */
+    @Benchmark
+    public int currentIndex(Cursor cursor) {
+        int i = cursor.advance(users.size());
+        return snapshot.currentIndex(storedTierIds[i], users.totalOrders[i], users.totalSpent[i], users.cohortMasks[i]);
+    }
+
+    /** Typed benefits of the stored tier, as resolveBenefits does after the cache hit. */
+    @Benchmark
+    public Benefits benefitsOf(Cursor cursor) {
+        return snapshot.benefitsOf(storedTierIds[cursor.advance(users.size())]);
+    }
+}
@@ -0,0 +1,88 @@
+package com.firstclub.membership.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.Tier;
+import com.firstclub.membership.service.PlanSnapshot;
+import com.firstclub.membership.service.TierSnapshot;
+
+/**
+ * {@code getAvailablePlans} served from the plan catalog, plus the cost of rebuilding it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlanCatalogBenchmark {
+
+    @Param({ "3", "30", "300" })
+    public int tierCount;
+
+    @Param({ "2", "6" })
+    public int plansPerTier;
+
+    @Param({ "1000000" })
+    public int userCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private TierSnapshot tiers;
+    private List<Plan> plans;
+    private PlanSnapshot catalog;
+    private SyntheticData.Users users;
+
+    @Setup
+    public void setUp() {
+        List<Tier> tierList = SyntheticData.tiers(tierCount);
+        tiers = TierSnapshot.build(1, tierList, SyntheticData::cohortId);
+        plans = SyntheticData.plans(tierList, plansPerTier);
+        catalog = PlanSnapshot.build(tiers, plans, objectMapper);
+        users = SyntheticData.users(userCount, tierCount);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int advance(int size) {
+            int i = next;
+            next = i + 1 == size ? 0 : i + 1;
+            return i;
+        }
+    }
+
+    @Benchmark
+    public List<Plan> availablePlans(Cursor cursor) {
+        int i = cursor.advance(users.size());
+        return catalog.plansFor(tiers.eligibleIndex(users.totalOrders[i], users.totalSpent[i], users.cohortMasks[i]));
+    }
+
+    @Benchmark
+    public byte[] availablePlansJson(Cursor cursor) {
+        int i = cursor.advance(users.size());
+        return catalog.plansJsonFor(tiers.eligibleIndex(users.totalOrders[i], users.totalSpent[i], users.cohortMasks[i]));
+    }
+
+    /** What a Plan or Tier change costs. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public PlanSnapshot rebuild() {
+        return PlanSnapshot.build(tiers, plans, objectMapper);
+    }
+}
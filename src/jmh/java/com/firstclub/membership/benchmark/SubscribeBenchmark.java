@@ -0,0 +1,100 @@
+package com.firstclub.membership.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.firstclub.membership.MembershipApplication;
+import com.firstclub.membership.model.Subscription;
+import com.firstclub.membership.service.MembershipService;
+
+/**
+ * {@code subscribe} throughput against the application context on in-memory H2,
+ * preloaded with a synthetic user population.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SubscribeBenchmark {
+
+    // users.id has no column default, ids come from users_seq like the JPA mapping's
+    private static final String INSERT_USER = "insert into users (id, name, email, total_orders, total_spent,"
+            + " cohort_mask) values (next value for users_seq, ?, ?, ?, ?, ?)";
+
+    @Param({ "1000000" })
+    public int userCount;
+
+    private ConfigurableApplicationContext context;
+    private MembershipService membershipService;
+    private long firstUserId;
+    private long lastUserId;
+    private Long silverMonthlyPlanId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(MembershipApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:subscribe-bench;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false", "logging.level.root=WARN")
+                .run();
+        membershipService = context.getBean(MembershipService.class);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+
+        // The generated stats only matter for eligibility; everyone can buy Silver
+        SyntheticData.Users users = SyntheticData.users(userCount, 3);
+        int chunk = 10_000;
+        for (int from = 0; from < userCount; from += chunk) {
+            List<Object[]> rows = new ArrayList<>(chunk);
+            for (int i = from; i < Math.min(from + chunk, userCount); i++) {
+                rows.add(new Object[] { "User " + i, "user" + i + "@bench.test", users.totalOrders[i],
+                        users.totalSpent[i], users.cohortMasks[i] });
+            }
+            jdbc.batchUpdate(INSERT_USER, rows);
+        }
+        firstUserId = jdbc.queryForObject("select min(id) from users where email like '%@bench.test'", Long.class);
+        lastUserId = jdbc.queryForObject("select max(id) from users where email like '%@bench.test'", Long.class);
+        silverMonthlyPlanId = jdbc.queryForObject("select p.id from plan p join tier t on p.tier_id = t.id"
+                + " where t.name = 'Silver' and p.duration = 'MONTHLY'", Long.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Picker {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    /** Mix of first-time subscriptions and plan changes on existing rows. */
+    @Benchmark
+    public Subscription subscribe(Picker picker) {
+        long userId = picker.random.nextLong(firstUserId, lastUserId + 1);
+        return membershipService.subscribe(userId, silverMonthlyPlanId);
+    }
+}
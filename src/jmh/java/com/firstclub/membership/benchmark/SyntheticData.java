@@ -0,0 +1,103 @@
+package com.firstclub.membership.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import com.firstclub.membership.model.MembershipDuration;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.Tier;
+
+/**
+ * Deterministic synthetic catalogs and user populations for the benchmarks.
+ */
+public final class SyntheticData {
+
+    public static final long SEED = 42L;
+    private static final String[] COHORTS = { null, null, null, "STUDENT", "VIP" };
+    // Cohort bits of the users: none, none, none, STUDENT, VIP
+    private static final long[] COHORT_MASKS = { 0L, 0L, 0L, 1L, 1L << 1 };
+
+    private SyntheticData() {
+    }
+
+    /**
+     * {@code count} tiers with rising thresholds; the first is "Silver". Every
+     * tenth tier is restricted to a cohort.
+     */
+    public static List<Tier> tiers(int count) {
+        List<Tier> tiers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = i == 0 ? "Silver" : "Tier-" + i;
+            String cohort = i > 0 && i % 10 == 0 ? COHORTS[3 + (i / 10) % 2] : null;
+            tiers.add(new Tier((long) i + 1, name, i * 5, i * 100.0, cohort,
+                    Map.of("DISCOUNT", Math.min(i, 50) + "%", "DELIVERY", "STANDARD")));
+        }
+        return tiers;
+    }
+
+    /**
+     * Cohort dictionary of the synthetic data, for {@code TierSnapshot.build}.
+     */
+    public static int cohortId(String cohort) {
+        switch (cohort) {
+            case "STUDENT":
+                return 0;
+            case "VIP":
+                return 1;
+            default:
+                return -1;
+        }
+    }
+
+    public static List<Plan> plans(List<Tier> tiers, int plansPerTier) {
+        MembershipDuration[] durations = MembershipDuration.values();
+        List<Plan> plans = new ArrayList<>(tiers.size() * plansPerTier);
+        long id = 1;
+        for (Tier tier : tiers) {
+            for (int p = 0; p < plansPerTier; p++) {
+                BigDecimal price = BigDecimal.valueOf(999 + tier.getId() * 100 + p, 2);
+                plans.add(new Plan(id++, tier, durations[p % durations.length], price));
+            }
+        }
+        return plans;
+    }
+
+    /**
+     * Stats of a user population in column form, so a million users stay cheap to hold.
+     */
+    public static final class Users {
+        public final int[] totalOrders;
+        public final double[] totalSpent;
+        public final long[] cohortMasks;
+
+        Users(int count) {
+            totalOrders = new int[count];
+            totalSpent = new double[count];
+            cohortMasks = new long[count];
+        }
+
+        public int size() {
+            return totalOrders.length;
+        }
+    }
+
+    /**
+     * Long-tailed order counts and spend, scaled so every tier in {@code tierCount} is reachable.
+     */
+    public static Users users(int count, int tierCount) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        Users users = new Users(count);
+        double maxOrders = tierCount * 5.0 + 10;
+        for (int i = 0; i < count; i++) {
+            double skew = Math.pow(random.nextDouble(), 3); // most users are small
+            int orders = (int) (skew * maxOrders);
+            users.totalOrders[i] = orders;
+            users.totalSpent[i] = orders * (15.0 + random.nextDouble() * 10.0);
+            users.cohortMasks[i] = COHORT_MASKS[random.nextInt(COHORT_MASKS.length)];
+        }
+        return users;
+    }
+}
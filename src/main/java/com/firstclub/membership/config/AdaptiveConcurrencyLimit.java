@@ -0,0 +1,74 @@
+package com.firstclub.membership.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Concurrency limit that follows observed latency (AIMD): every request that
+ * completes within the target latency while the limit is in use raises the limit
+ * by {@code 1 / limit}, i.e. by about one per round of requests, and a slower one
+ * cuts it by {@code backoffRatio}, at most once per target latency so a burst of
+ * slow requests counts as one signal. All state is in atomics.
+ */
+public final class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+    private final AtomicLong limitBits;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong lastDecreaseAt = new AtomicLong(System.nanoTime());
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long targetLatencyNanos,
+            double backoffRatio) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.backoffRatio = backoffRatio;
+        this.limitBits = new AtomicLong(Double.doubleToRawLongBits(
+                Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit))));
+    }
+
+    public boolean tryAcquire() {
+        int limit = getLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a permit taken by {@link #tryAcquire()} and feeds its latency back.
+     */
+    public void release(long latencyNanos, long nowNanos) {
+        int wasInFlight = inFlight.getAndDecrement();
+        if (latencyNanos > targetLatencyNanos) {
+            long last = lastDecreaseAt.get();
+            if (nowNanos - last >= targetLatencyNanos && lastDecreaseAt.compareAndSet(last, nowNanos)) {
+                update(limit -> Math.max(minLimit, limit * backoffRatio));
+            }
+        } else if (wasInFlight * 2 >= getLimit()) {
+            // Only grow when the limit is actually being used
+            update(limit -> Math.min(maxLimit, limit + 1.0 / limit));
+        }
+    }
+
+    private void update(DoubleUnaryOperator change) {
+        limitBits.updateAndGet(bits -> Double.doubleToRawLongBits(change.applyAsDouble(Double.longBitsToDouble(bits))));
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
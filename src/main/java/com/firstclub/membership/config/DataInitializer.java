@@ -7,6 +7,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.firstclub.membership.model.BenefitKey;
 import com.firstclub.membership.model.MembershipDuration;
 import com.firstclub.membership.model.Plan;
 import com.firstclub.membership.model.Tier;
@@ -14,44 +15,62 @@ import com.firstclub.membership.model.User;
 import com.firstclub.membership.repository.PlanRepository;
 import com.firstclub.membership.repository.TierRepository;
 import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.CatalogReplicator;
+import com.firstclub.membership.shard.ShardContext;
 
 @Configuration
 public class DataInitializer {
 
     @Bean
-    CommandLineRunner initDatabase(TierRepository tierRepo, PlanRepository planRepo, UserRepository userRepo) {
+    CommandLineRunner initDatabase(TierRepository tierRepo, PlanRepository planRepo, UserRepository userRepo,
+            CatalogReplicator catalogReplicator) {
         return args -> {
-            // Create Tiers
-            // Create Tiers
-            Tier silver = new Tier(null, "Silver", 0, 0.0, null, Map.of("DISCOUNT", "5%", "DELIVERY", "STANDARD"));
-            Tier gold = new Tier(null, "Gold", 10, 500.0, null,
-                    Map.of("DISCOUNT", "10%", "DELIVERY", "FREE_ON_ELIGIBLE"));
-            Tier platinum = new Tier(null, "Platinum", 50, 2000.0, null,
-                    Map.of("DISCOUNT", "20%", "DELIVERY", "FREE_ALL", "SUPPORT", "PRIORITY"));
-
-            tierRepo.save(silver);
-            tierRepo.save(gold);
-            tierRepo.save(platinum);
-
-            // Create Plans
-            // Silver
-            planRepo.save(new Plan(null, silver, MembershipDuration.MONTHLY, new BigDecimal("9.99")));
-            planRepo.save(new Plan(null, silver, MembershipDuration.YEARLY, new BigDecimal("99.99")));
-
-            // Gold
-            planRepo.save(new Plan(null, gold, MembershipDuration.MONTHLY, new BigDecimal("19.99")));
-            planRepo.save(new Plan(null, gold, MembershipDuration.QUARTERLY, new BigDecimal("55.00")));
-            planRepo.save(new Plan(null, gold, MembershipDuration.YEARLY, new BigDecimal("199.99")));
-
-            // Platinum
-            planRepo.save(new Plan(null, platinum, MembershipDuration.MONTHLY, new BigDecimal("49.99")));
-            planRepo.save(new Plan(null, platinum, MembershipDuration.YEARLY, new BigDecimal("499.99")));
+            // The catalog is edited on shard 0 and copied to every other shard, ids included.
+            // A persistent database keeps it across restarts, so only an empty catalog is seeded.
+            ShardContext.runOn(0, () -> {
+                if (tierRepo.count() == 0) {
+                    seedCatalog(tierRepo, planRepo);
+                }
+            });
+            catalogReplicator.syncAll();
 
             // Create Demo User
-            User user = new User(null, "John Doe", "john@example.com", 0, 0.0, null);
-            userRepo.save(user); // ID 1
+            ShardContext.runOn(0, () -> {
+                if (userRepo.findByEmail("john@example.com").isEmpty()) {
+                    userRepo.save(new User(null, "John Doe", "john@example.com", 0, 0.0, 0L)); // ID 1
+                }
+            });
 
             System.out.println("Database initialized with Tiers, Plans, and Demo User.");
         };
     }
+
+    private void seedCatalog(TierRepository tierRepo, PlanRepository planRepo) {
+        // Create Tiers
+        // Create Tiers
+        Tier silver = new Tier(null, "Silver", 0, 0.0, null,
+                Map.of(BenefitKey.DISCOUNT, "5%", BenefitKey.DELIVERY, "STANDARD"));
+        Tier gold = new Tier(null, "Gold", 10, 500.0, null,
+                Map.of(BenefitKey.DISCOUNT, "10%", BenefitKey.DELIVERY, "FREE_ON_ELIGIBLE"));
+        Tier platinum = new Tier(null, "Platinum", 50, 2000.0, null,
+                Map.of(BenefitKey.DISCOUNT, "20%", BenefitKey.DELIVERY, "FREE_ALL", BenefitKey.SUPPORT, "PRIORITY"));
+
+        tierRepo.save(silver);
+        tierRepo.save(gold);
+        tierRepo.save(platinum);
+
+        // Create Plans
+        // Silver
+        planRepo.save(new Plan(null, silver, MembershipDuration.MONTHLY, new BigDecimal("9.99")));
+        planRepo.save(new Plan(null, silver, MembershipDuration.YEARLY, new BigDecimal("99.99")));
+
+        // Gold
+        planRepo.save(new Plan(null, gold, MembershipDuration.MONTHLY, new BigDecimal("19.99")));
+        planRepo.save(new Plan(null, gold, MembershipDuration.QUARTERLY, new BigDecimal("55.00")));
+        planRepo.save(new Plan(null, gold, MembershipDuration.YEARLY, new BigDecimal("199.99")));
+
+        // Platinum
+        planRepo.save(new Plan(null, platinum, MembershipDuration.MONTHLY, new BigDecimal("49.99")));
+        planRepo.save(new Plan(null, platinum, MembershipDuration.YEARLY, new BigDecimal("499.99")));
+    }
 }
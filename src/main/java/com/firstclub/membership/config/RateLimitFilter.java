@@ -0,0 +1,121 @@
+package com.firstclub.membership.config;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Admission control for the write endpoints ({@code membership.rate-limit.endpoints}).
+ * A request first needs a token from the bucket of its (endpoint, userId), which
+ * stops one client hammering one user row, then a permit of the global
+ * {@link AdaptiveConcurrencyLimit}, which backs off while these requests get slow,
+ * i.e. while the database is saturated. Either refusal is answered right away with
+ * 429 and Retry-After and counted in {@code membership.requests.shed}.
+ * <p>
+ * Buckets live in a bounded Caffeine map and are dropped after
+ * {@code key-idle-seconds} without requests, by which time they have refilled anyway.
+ */
+@Component
+@ConditionalOnProperty(name = "membership.rate-limit.enabled", havingValue = "true")
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String PREFIX = "/api/membership/";
+
+    private record BucketKey(String endpoint, String userId) {
+    }
+
+    private final Set<String> endpoints;
+    private final double ratePerSecond;
+    private final int burst;
+    private final Cache<BucketKey, TokenBucket> buckets;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final Counter shedByRate;
+    private final Counter shedByConcurrency;
+
+    public RateLimitFilter(MeterRegistry registry,
+            @Value("${membership.rate-limit.endpoints:subscribe,cancel,simulate-order}") String endpoints,
+            @Value("${membership.rate-limit.per-user-rate:5}") double ratePerSecond,
+            @Value("${membership.rate-limit.per-user-burst:10}") int burst,
+            @Value("${membership.rate-limit.max-keys:100000}") long maxKeys,
+            @Value("${membership.rate-limit.key-idle-seconds:60}") long keyIdleSeconds,
+            @Value("${membership.rate-limit.concurrency.initial-limit:20}") int initialLimit,
+            @Value("${membership.rate-limit.concurrency.min-limit:2}") int minLimit,
+            @Value("${membership.rate-limit.concurrency.max-limit:200}") int maxLimit,
+            @Value("${membership.rate-limit.concurrency.target-latency-ms:100}") long targetLatencyMs,
+            @Value("${membership.rate-limit.concurrency.backoff-ratio:0.9}") double backoffRatio) {
+        this.endpoints = Arrays.stream(endpoints.split(",")).map(String::trim).filter(e -> !e.isEmpty())
+                .map(e -> PREFIX + e).collect(Collectors.toUnmodifiableSet());
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(keyIdleSeconds, TimeUnit.SECONDS)
+                .build();
+        this.concurrencyLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit,
+                TimeUnit.MILLISECONDS.toNanos(targetLatencyMs), backoffRatio);
+        this.shedByRate = Counter.builder("membership.requests.shed").tag("reason", "rate")
+                .description("Write requests rejected with 429 by the per-user token bucket").register(registry);
+        this.shedByConcurrency = Counter.builder("membership.requests.shed").tag("reason", "concurrency")
+                .description("Write requests rejected with 429 by the adaptive concurrency limit")
+                .register(registry);
+        Gauge.builder("membership.concurrency.limit", concurrencyLimit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Current adaptive limit of concurrent write requests").register(registry);
+        Gauge.builder("membership.concurrency.in-flight", concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Write requests currently admitted").register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !endpoints.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // Requests without a userId share one bucket per endpoint
+        String userId = request.getParameter("userId");
+        BucketKey key = new BucketKey(request.getRequestURI(), userId == null ? "" : userId);
+        long now = System.nanoTime();
+        long waitNanos = buckets.get(key, k -> new TokenBucket(ratePerSecond, burst)).tryTake(now);
+        if (waitNanos > 0) {
+            shedByRate.increment();
+            reject(response, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            return;
+        }
+        if (!concurrencyLimit.tryAcquire()) {
+            shedByConcurrency.increment();
+            reject(response, 1);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long end = System.nanoTime();
+            concurrencyLimit.release(end - now, end);
+        }
+    }
+
+    private static void reject(HttpServletResponse response, long retryAfterSeconds) {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", Long.toString(Math.max(1, retryAfterSeconds)));
+    }
+}
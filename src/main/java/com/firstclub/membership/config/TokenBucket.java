@@ -0,0 +1,40 @@
+package com.firstclub.membership.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket of {@code burst} tokens refilled at {@code ratePerSecond}.
+ * It is kept in its GCRA form, as the single time at which the bucket would be full
+ * again, so taking a token is one compare-and-set on one long.
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos; // time to refill one token
+    private final long toleranceNanos; // how far ahead of now the full time may run: burst - 1 tokens
+    private final AtomicLong fullAt;
+
+    public TokenBucket(double ratePerSecond, int burst) {
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.toleranceNanos = intervalNanos * (Math.max(1, burst) - 1);
+        this.fullAt = new AtomicLong(Long.MIN_VALUE);
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @return 0 if taken, otherwise the nanoseconds until a token will be available
+     */
+    public long tryTake(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long start = current == Long.MIN_VALUE || current - nowNanos < 0 ? nowNanos : current;
+            long wait = start - nowNanos - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.firstclub.membership.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.firstclub.membership.dto.CatalogVersionView;
+import com.firstclub.membership.dto.CohortUpdateResult;
+import com.firstclub.membership.dto.ImportResult;
+import com.firstclub.membership.dto.TierReevaluationReport;
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.firstclub.membership.service.CatalogChangePoller;
+import com.firstclub.membership.service.CohortService;
+import com.firstclub.membership.service.MembershipAdminService;
+import com.firstclub.membership.service.TierReevaluationService;
+import com.firstclub.membership.service.UserImportService;
+
+@RestController
+@RequestMapping("/api/membership/admin")
+public class AdminController {
+
+    @Autowired
+    private MembershipAdminService membershipAdminService;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private CohortService cohortService;
+
+    @Autowired
+    private CatalogChangePoller catalogChangePoller;
+
+    @Autowired
+    private TierReevaluationService tierReevaluationService;
+
+    // Streams a CSV/NDJSON file from membership.import.dir; rerun to resume after a failure
+    @PostMapping("/import")
+    public ImportResult importUsers(@RequestParam String file,
+            @RequestParam(required = false) UserImportService.Format format,
+            @RequestParam(defaultValue = "false") boolean restart) {
+        return userImportService.importFile(file, format, restart);
+    }
+
+    // Cohort name -> id (bit in users.cohort_mask)
+    @GetMapping("/cohorts")
+    public Map<String, Integer> cohorts() {
+        return cohortService.cohorts();
+    }
+
+    // Body: user ids. Only users whose membership changes are re-evaluated
+    @PostMapping("/cohorts/{cohort}/assign")
+    public CohortUpdateResult assignCohort(@PathVariable String cohort, @RequestBody List<Long> userIds) {
+        return cohortService.assign(cohort, userIds);
+    }
+
+    @PostMapping("/cohorts/{cohort}/remove")
+    public CohortUpdateResult removeCohort(@PathVariable String cohort, @RequestBody List<Long> userIds) {
+        return cohortService.remove(cohort, userIds);
+    }
+
+    // Recomputes every user's tier against the current thresholds; dry run by default
+    @PostMapping("/tiers/reevaluate")
+    public TierReevaluationReport reevaluateTiers(@RequestParam(defaultValue = "true") boolean dryRun) {
+        return tierReevaluationService.reevaluate(dryRun);
+    }
+
+    // Catalog change-log version this node has applied; equal on all nodes once they caught up
+    @GetMapping("/catalog/version")
+    public CatalogVersionView catalogVersion() {
+        return catalogChangePoller.version();
+    }
+
+    // Aggregated over all shards
+    @GetMapping("/subscriptions/status-counts")
+    public Map<SubscriptionStatus, Long> subscriptionStatusCounts() {
+        return membershipAdminService.subscriptionStatusCounts();
+    }
+}
@@ -1,20 +1,31 @@
 package com.firstclub.membership.controller;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.firstclub.membership.model.Plan;
-import com.firstclub.membership.model.Subscription;
-import com.firstclub.membership.model.User;
-import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.dto.BatchItemResult;
+import com.firstclub.membership.dto.BatchOperation;
+import com.firstclub.membership.dto.Benefits;
+import com.firstclub.membership.dto.PlanChangeQuote;
+import com.firstclub.membership.dto.SubscriptionHistoryPage;
+import com.firstclub.membership.dto.SubscriptionView;
+import com.firstclub.membership.service.BatchMembershipService;
 import com.firstclub.membership.service.MembershipService;
+import com.firstclub.membership.service.OrderIngestionService;
+import com.firstclub.membership.service.SubscriptionHistoryService;
 
 @RestController
 @RequestMapping("/api/membership")
@@ -24,34 +35,78 @@ public class MembershipController {
     private MembershipService membershipService;
 
     @Autowired
-    private UserRepository userRepository;
+    private BatchMembershipService batchMembershipService;
+
+    @Autowired
+    private OrderIngestionService orderIngestionService;
+
+    @Autowired
+    private SubscriptionHistoryService subscriptionHistoryService;
 
     @GetMapping("/plans/{userId}")
-    public List<Plan> getAvailablePlans(@PathVariable Long userId) {
-        return membershipService.getAvailablePlans(userId);
+    public ResponseEntity<byte[]> getAvailablePlans(@PathVariable Long userId) {
+        // Served from the prebuilt plan catalog, already serialized
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(membershipService.getAvailablePlansJson(userId));
     }
 
+    // Optional Idempotency-Key: a retry with the same key returns the first response
     @PostMapping("/subscribe")
-    public Subscription subscribe(@RequestParam Long userId, @RequestParam Long planId) {
-        return membershipService.subscribe(userId, planId);
+    public SubscriptionView subscribe(@RequestParam Long userId, @RequestParam Long planId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return membershipService.subscribe(userId, planId, idempotencyKey);
+    }
+
+    // Prices a plan change (credit for unused days, amount due) without applying it
+    @GetMapping("/quote")
+    public PlanChangeQuote quote(@RequestParam Long userId, @RequestParam Long planId) {
+        return membershipService.quotePlanChange(userId, planId);
     }
 
     @PostMapping("/cancel")
-    public void cancel(@RequestParam Long userId) {
-        membershipService.cancelSubscription(userId);
+    public void cancel(@RequestParam Long userId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        membershipService.cancelSubscription(userId, idempotencyKey);
+    }
+
+    @PostMapping("/auto-renew")
+    public SubscriptionView setAutoRenew(@RequestParam Long userId, @RequestParam boolean enabled) {
+        return membershipService.setAutoRenew(userId, enabled);
+    }
+
+    // Bulk subscribe/cancel; one result per operation, in request order
+    @PostMapping("/batch")
+    public List<BatchItemResult> batch(@RequestBody List<BatchOperation> operations) {
+        return batchMembershipService.execute(operations);
     }
 
     @GetMapping("/current/{userId}")
-    public Subscription getCurrentSubscription(@PathVariable Long userId) {
+    public SubscriptionView getCurrentSubscription(@PathVariable Long userId) {
         return membershipService.getCurrentSubscription(userId);
     }
 
-    // Helper to simulate order and increase stats
+    // Newest first; pass nextCursor back as before for the next page
+    @GetMapping("/history/{userId}")
+    public SubscriptionHistoryPage getHistory(@PathVariable Long userId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "50") int limit) {
+        return subscriptionHistoryService.history(userId, before, from, to, limit);
+    }
+
+    // Typed benefits of the active subscription; called on every cart render
+    @GetMapping("/benefits/{userId}")
+    public Benefits getBenefits(@PathVariable Long userId) {
+        return membershipService.resolveBenefits(userId);
+    }
+
+    // Helper to simulate order and increase stats.
+    // Stats are aggregated in memory and flushed to the user row asynchronously.
     @PostMapping("/simulate-order")
-    public User simulateOrder(@RequestParam Long userId, @RequestParam double amount) {
-        User user = userRepository.findById(userId).orElseThrow();
-        user.setTotalOrders(user.getTotalOrders() + 1);
-        user.setTotalSpent(user.getTotalSpent() + amount);
-        return userRepository.save(user);
+    public ResponseEntity<Void> simulateOrder(@RequestParam Long userId, @RequestParam double amount) {
+        orderIngestionService.record(userId, amount);
+        return ResponseEntity.accepted().build();
     }
 }
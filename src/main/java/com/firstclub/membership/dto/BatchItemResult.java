@@ -0,0 +1,15 @@
+package com.firstclub.membership.dto;
+
+/**
+ * Outcome of the operation at {@code index} in the batch request.
+ */
+public record BatchItemResult(int index, Long userId, boolean success, Long subscriptionId, String error) {
+
+    public static BatchItemResult ok(int index, Long userId, Long subscriptionId) {
+        return new BatchItemResult(index, userId, true, subscriptionId, null);
+    }
+
+    public static BatchItemResult failed(int index, Long userId, String error) {
+        return new BatchItemResult(index, userId, false, null, error);
+    }
+}
@@ -0,0 +1,12 @@
+package com.firstclub.membership.dto;
+
+/**
+ * One entry of a batch request. {@code planId} is only used by SUBSCRIBE.
+ */
+public record BatchOperation(Type type, Long userId, Long planId) {
+
+    public enum Type {
+        SUBSCRIBE,
+        CANCEL
+    }
+}
@@ -0,0 +1,22 @@
+package com.firstclub.membership.dto;
+
+import com.firstclub.membership.model.DeliveryClass;
+import com.firstclub.membership.model.SupportPriority;
+
+/**
+ * Typed benefits of a tier. One shared instance per tier per catalog version,
+ * so resolving a user's benefits hands out an existing object.
+ */
+public record Benefits(Long tierId, String tierName, int discountBasisPoints, DeliveryClass delivery,
+        SupportPriority support) {
+
+    /** No active membership. */
+    public static final Benefits NONE = new Benefits(null, null, 0, DeliveryClass.STANDARD, SupportPriority.STANDARD);
+
+    /**
+     * Discount on {@code amountCents}, rounded down to whole cents.
+     */
+    public long discountCents(long amountCents) {
+        return amountCents * discountBasisPoints / 10_000;
+    }
+}
@@ -0,0 +1,11 @@
+package com.firstclub.membership.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Catalog state of this node: the last change-log version it applied, the latest
+ * version in the database when it last polled, and the local tier snapshot version.
+ */
+public record CatalogVersionView(long appliedVersion, long latestVersion, long tierSnapshotVersion,
+        LocalDateTime lastPolledAt) {
+}
@@ -0,0 +1,8 @@
+package com.firstclub.membership.dto;
+
+/**
+ * Outcome of a bulk cohort assignment or removal. {@code changed} counts users
+ * whose membership actually changed, {@code tierChanged} those of them that moved tier.
+ */
+public record CohortUpdateResult(String cohort, int cohortId, int requested, int changed, int tierChanged) {
+}
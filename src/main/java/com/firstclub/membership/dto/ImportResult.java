@@ -0,0 +1,9 @@
+package com.firstclub.membership.dto;
+
+/**
+ * Totals of a user import. When the import resumed from a checkpoint, the totals
+ * include the rows committed by earlier runs.
+ */
+public record ImportResult(String source, long rowsRead, long rowsSkipped, long usersImported,
+        long subscriptionsImported, long subscriptionsRejected, long resumedFromOffset, boolean completed) {
+}
@@ -0,0 +1,16 @@
+package com.firstclub.membership.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.firstclub.membership.model.PlanChangeKind;
+
+/**
+ * Price of moving a subscription to another plan. {@code credit} is the value of
+ * the unused days of the current period, {@code amountDue} what is charged for
+ * the change. Credit above the new plan's price extends {@code newEndDate}
+ * instead. For a DOWNGRADE nothing changes until {@code effectiveDate}.
+ */
+public record PlanChangeQuote(Long fromPlanId, Long toPlanId, PlanChangeKind kind, long remainingDays,
+        BigDecimal credit, BigDecimal charge, BigDecimal amountDue, LocalDate effectiveDate, LocalDate newEndDate) {
+}
@@ -0,0 +1,18 @@
+package com.firstclub.membership.dto;
+
+import java.math.BigDecimal;
+
+import com.firstclub.membership.model.MembershipDuration;
+import com.firstclub.membership.model.Plan;
+
+/**
+ * Compact plan entry of the available-plans response.
+ */
+public record PlanView(Long id, String planName, Long tierId, String tierName, MembershipDuration duration,
+        BigDecimal price) {
+
+    public static PlanView of(Plan plan) {
+        return new PlanView(plan.getId(), plan.getPlanName(), plan.getTier().getId(), plan.getTier().getName(),
+                plan.getDuration(), plan.getPrice());
+    }
+}
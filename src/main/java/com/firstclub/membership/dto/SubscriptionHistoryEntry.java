@@ -0,0 +1,14 @@
+package com.firstclub.membership.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.firstclub.membership.model.SubscriptionEventType;
+import com.firstclub.membership.model.SubscriptionStatus;
+
+/**
+ * One row of a user's subscription history, as returned by the history API.
+ */
+public record SubscriptionHistoryEntry(Long id, Long subscriptionId, SubscriptionEventType eventType, Long planId,
+        Long tierId, SubscriptionStatus status, LocalDate startDate, LocalDate endDate, LocalDateTime recordedAt) {
+}
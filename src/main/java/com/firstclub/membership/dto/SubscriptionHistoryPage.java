@@ -0,0 +1,10 @@
+package com.firstclub.membership.dto;
+
+import java.util.List;
+
+/**
+ * A page of history, newest first. Pass {@code nextCursor} as {@code before} to
+ * get the next page; it is null on the last one.
+ */
+public record SubscriptionHistoryPage(List<SubscriptionHistoryEntry> entries, Long nextCursor) {
+}
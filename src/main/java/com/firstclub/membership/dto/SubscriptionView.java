@@ -0,0 +1,38 @@
+package com.firstclub.membership.dto;
+
+import java.time.LocalDate;
+
+import com.firstclub.membership.model.MembershipDuration;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.Subscription;
+import com.firstclub.membership.model.SubscriptionStatus;
+
+/**
+ * Immutable, flat view of a subscription; what the API returns and the cache holds.
+ */
+public record SubscriptionView(Long subscriptionId, Long userId, Long planId, String planName, Long tierId,
+        String tierName, LocalDate startDate, LocalDate endDate, SubscriptionStatus status, boolean autoRenew, Long pendingPlanId) {
+
+    /**
+     * Used by the JPQL constructor projection in SubscriptionRepository.
+     */
+    public SubscriptionView(Long subscriptionId, Long userId, Long planId, Long tierId, String tierName,
+            MembershipDuration duration, LocalDate startDate, LocalDate endDate, SubscriptionStatus status,
+            boolean autoRenew, Long pendingPlanId) {
+        this(subscriptionId, userId, planId, tierName + " " + duration, tierId, tierName, startDate, endDate,
+                status, autoRenew, pendingPlanId);
+    }
+
+    public static SubscriptionView of(Subscription s) {
+        return of(s, s.getPlan());
+    }
+
+    /**
+     * Takes plan details from {@code plan} (e.g. a catalog copy) rather than the entity's association.
+     */
+    public static SubscriptionView of(Subscription s, Plan plan) {
+        return new SubscriptionView(s.getId(), s.getUser().getId(), plan.getId(), plan.getPlanName(),
+                plan.getTier().getId(), plan.getTier().getName(), s.getStartDate(), s.getEndDate(), s.getStatus(),
+                s.isAutoRenew(), s.getPendingPlanId());
+    }
+}
@@ -0,0 +1,14 @@
+package com.firstclub.membership.dto;
+
+import java.util.Map;
+
+/**
+ * Outcome of a tier re-evaluation over all users. {@code transitions} counts users
+ * per "From -> To" tier move ("(none)" for users without a stored tier);
+ * {@code skipped} are users whose stats changed while the job ran and were left
+ * to the regular per-write re-evaluation.
+ */
+public record TierReevaluationReport(boolean dryRun, long tierSnapshotVersion, long usersScanned,
+        long usersChanged, long upgrades, long downgrades, long skipped, Map<String, Long> transitions,
+        long elapsedMillis) {
+}
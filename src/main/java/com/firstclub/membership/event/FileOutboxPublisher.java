@@ -0,0 +1,48 @@
+package com.firstclub.membership.event;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Appends each message as one JSON line to a local file. For tests and for
+ * consumers that tail a file instead of polling the API.
+ */
+@Component
+@ConditionalOnProperty(name = "membership.outbox.publisher", havingValue = "file")
+public class FileOutboxPublisher implements OutboxPublisher {
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public FileOutboxPublisher(@Value("${membership.outbox.file:outbox.ndjson}") String file,
+            ObjectMapper objectMapper) {
+        this.file = Path.of(file);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxMessage> batch) {
+        try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (OutboxMessage message : batch) {
+                out.write(objectMapper.writeValueAsBytes(message));
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to append to " + file, e);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+}
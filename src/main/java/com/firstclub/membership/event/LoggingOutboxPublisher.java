@@ -0,0 +1,25 @@
+package com.firstclub.membership.event;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Default publisher until a broker is wired in
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "membership.outbox.publisher", havingValue = "log", matchIfMissing = true)
+public class LoggingOutboxPublisher implements OutboxPublisher {
+
+    @Override
+    public void publish(List<OutboxMessage> batch) {
+        log.info("Published {} subscription events, ids {}..{}", batch.size(), batch.get(0).id(),
+                batch.get(batch.size() - 1).id());
+        for (OutboxMessage message : batch) {
+            log.debug("Subscription event {} {} user={} subscription={}", message.id(), message.type(),
+                    message.userId(), message.subscriptionId());
+        }
+    }
+}
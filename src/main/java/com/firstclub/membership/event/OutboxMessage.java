@@ -0,0 +1,16 @@
+package com.firstclub.membership.event;
+
+import java.time.LocalDateTime;
+
+import com.firstclub.membership.model.SubscriptionEventType;
+
+/**
+ * A subscription change as handed to an {@link OutboxPublisher}. {@code id} is
+ * unique and doubles as the dedup key: delivery is at least once. A shard's
+ * messages are published in id order, also when a batch has to be retried.
+ * Ids are pooled per node, so a user's changes made through one node are in
+ * commit order, while changes from different nodes may not be.
+ */
+public record OutboxMessage(Long id, SubscriptionEventType type, Long userId, Long subscriptionId, String payload,
+        LocalDateTime createdAt) {
+}
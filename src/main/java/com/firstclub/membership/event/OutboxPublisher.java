@@ -0,0 +1,16 @@
+package com.firstclub.membership.event;
+
+import java.util.List;
+
+/**
+ * Destination of the subscription outbox. Exactly one implementation is active,
+ * chosen with {@code membership.outbox.publisher}.
+ */
+public interface OutboxPublisher {
+
+    /**
+     * Publishes the batch in the given order. Throwing leaves the whole batch in
+     * the outbox to be retried, so messages may be seen more than once.
+     */
+    void publish(List<OutboxMessage> batch);
+}
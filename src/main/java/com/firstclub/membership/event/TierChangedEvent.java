@@ -0,0 +1,10 @@
+package com.firstclub.membership.event;
+
+/**
+ * Published when a user's stats move them across a tier boundary.
+ * Not published for the first tier assignment of a new user. Published after
+ * the writing transaction has committed, so listeners only see persisted tiers.
+ */
+public record TierChangedEvent(Long userId, Long fromTierId, String fromTierName, Long toTierId,
+        String toTierName, boolean upgrade) {
+}
@@ -0,0 +1,15 @@
+package com.firstclub.membership.model;
+
+/**
+ * Keys understood in {@link Tier#getBenefits()}. Values are parsed once, when the
+ * tier snapshot is built; unknown keys are ignored.
+ */
+public final class BenefitKey {
+
+    public static final String DISCOUNT = "DISCOUNT"; // percentage, e.g. "10%" or "12.5"
+    public static final String DELIVERY = "DELIVERY"; // DeliveryClass name
+    public static final String SUPPORT = "SUPPORT"; // SupportPriority name
+
+    private BenefitKey() {
+    }
+}
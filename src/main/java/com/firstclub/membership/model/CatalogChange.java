@@ -0,0 +1,40 @@
+package com.firstclub.membership.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One tier or plan change, stamped with the catalog version it produced.
+ * Written by CatalogChangeLog in the transaction of the change; every node
+ * polls for versions above the last one it applied.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "catalog_change")
+public class CatalogChange {
+
+    public static final String TIER = "TIER";
+    public static final String PLAN = "PLAN";
+
+    // Taken from catalog_version under its row lock, so versions commit in order
+    @Id
+    private Long version;
+
+    @Column(name = "entity_type", length = 10, nullable = false)
+    private String entityType;
+
+    @Column(name = "entity_id")
+    private Long entityId;
+
+    @Column(name = "changed_at")
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,25 @@
+package com.firstclub.membership.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Single row (id 1) holding the latest catalog version. Bumping it takes the
+ * row lock, which orders concurrent catalog edits; polling it is one primary
+ * key read.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "catalog_version")
+public class CatalogVersion {
+    @Id
+    private Integer id;
+
+    private long version;
+}
@@ -0,0 +1,28 @@
+package com.firstclub.membership.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cohort dictionary entry. The id is the cohort's bit in {@link User#getCohortMask()},
+ * so it is assigned by CohortDictionary (0..63) rather than generated, and is the
+ * same on every shard.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "cohort")
+public class Cohort {
+    @Id
+    private Integer id;
+
+    // Normalized to upper case, e.g. "STUDENT"
+    @Column(nullable = false, unique = true, length = 64)
+    private String name;
+}
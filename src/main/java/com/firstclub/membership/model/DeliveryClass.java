@@ -0,0 +1,8 @@
+package com.firstclub.membership.model;
+
+// Ordered from least to most generous
+public enum DeliveryClass {
+    STANDARD,
+    FREE_ON_ELIGIBLE,
+    FREE_ALL
+}
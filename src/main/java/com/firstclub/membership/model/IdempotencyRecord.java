@@ -0,0 +1,44 @@
+package com.firstclub.membership.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a request made with an Idempotency-Key, written in the same
+ * transaction as the change itself so a retried request can be answered
+ * without running it again.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+// Retention purge deletes by age
+@Table(name = "idempotency_record", indexes = @Index(name = "idx_idempotency_created_at", columnList = "created_at"))
+public class IdempotencyRecord {
+    // "<operation>:<userId>:<client key>"
+    @Id
+    @Column(name = "record_key", length = 200)
+    private String recordKey;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    // Parameters of the original request, a reused key must match them
+    @Column(length = 200)
+    private String request;
+
+    // Serialized response body, empty for operations without one
+    @Column(length = 2000)
+    private byte[] response;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,43 @@
+package com.firstclub.membership.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress of a user import, updated in the same transaction as each imported
+ * chunk, so a restarted import continues exactly after the last committed row.
+ * Counters are running totals for the whole file.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "import_checkpoint")
+public class ImportCheckpoint {
+    // Absolute path of the imported file
+    @Id
+    @Column(length = 500)
+    private String source;
+
+    // Size of the file when the import started; a different size means a different file
+    private long fileSize;
+
+    // Offset just after the last committed row
+    private long byteOffset;
+
+    private long rowsRead;
+    private long rowsSkipped;
+    private long usersImported;
+    private long subscriptionsImported;
+    private long subscriptionsRejected;
+    private boolean completed;
+
+    private LocalDateTime updatedAt;
+}
@@ -1,7 +1,18 @@
 package com.firstclub.membership.model;
 
 public enum MembershipDuration {
-    MONTHLY,
-    QUARTERLY,
-    YEARLY
+    MONTHLY(30),
+    QUARTERLY(91),
+    YEARLY(365);
+
+    // Period length used to price a single day (proration)
+    private final int nominalDays;
+
+    MembershipDuration(int nominalDays) {
+        this.nominalDays = nominalDays;
+    }
+
+    public int getNominalDays() {
+        return nominalDays;
+    }
 }
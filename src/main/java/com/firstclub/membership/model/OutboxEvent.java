@@ -0,0 +1,59 @@
+package com.firstclub.membership.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A subscription change waiting to be published downstream. Written in the
+ * same transaction as the change, drained and deleted by OutboxRelay.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+// Relay claims unclaimed (or stale) rows
+@Table(name = "outbox_event", indexes = @Index(name = "idx_outbox_claimed_at", columnList = "claimed_at"))
+public class OutboxEvent {
+    @Id
+    // Relayed in id order, also across failed publishes. Ids are pooled per node, so
+    // only changes written through one node are guaranteed to be in commit order
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+    @SequenceGenerator(name = "outbox_seq", sequenceName = "outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", length = 40)
+    private SubscriptionEventType eventType;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "subscription_id")
+    private Long subscriptionId;
+
+    // SubscriptionView as JSON
+    @Column(length = 2000)
+    private String payload;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "claimed_by", length = 100)
+    private String claimedBy;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+}
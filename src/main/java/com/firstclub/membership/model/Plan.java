@@ -3,6 +3,7 @@ package com.firstclub.membership.model;
 import java.math.BigDecimal;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
@@ -14,10 +15,13 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import com.firstclub.membership.service.CatalogChangeListener;
+
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@EntityListeners(CatalogChangeListener.class)
 public class Plan {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,61 @@
+package com.firstclub.membership.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A priced plan change as applied (or scheduled), the record billing charges from.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "plan_change")
+public class PlanChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "plan_change_seq")
+    @SequenceGenerator(name = "plan_change_seq", sequenceName = "plan_change_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "subscription_id")
+    private Long subscriptionId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "from_plan_id")
+    private Long fromPlanId;
+
+    @Column(name = "to_plan_id")
+    private Long toPlanId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private PlanChangeKind kind;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal credit;
+
+    @Column(name = "amount_due", precision = 12, scale = 2)
+    private BigDecimal amountDue;
+
+    @Column(name = "effective_date")
+    private LocalDate effectiveDate;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
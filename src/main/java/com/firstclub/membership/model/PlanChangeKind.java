@@ -0,0 +1,9 @@
+package com.firstclub.membership.model;
+
+public enum PlanChangeKind {
+    NEW, // no running subscription, a new period starts today
+    NONE, // already on this plan
+    UPGRADE, // higher tier, immediately, unused days credited
+    SWITCH, // same tier, other duration, immediately, unused days credited
+    DOWNGRADE // lower tier, takes effect at the end of the paid period
+}
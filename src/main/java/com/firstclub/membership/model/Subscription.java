@@ -2,15 +2,19 @@ package com.firstclub.membership.model;
 
 import java.time.LocalDate;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -20,13 +24,22 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+// Expiry sweep looks up ACTIVE rows by end date, the renewal queue auto-renewing ones;
+// user_id is unique (one subscription row per user) and is how every read finds the row
+@Table(indexes = {
+        @Index(name = "idx_subscription_user", columnList = "user_id", unique = true),
+        @Index(name = "idx_subscription_status_end_date", columnList = "status, end_date"),
+        @Index(name = "idx_subscription_renewal", columnList = "auto_renew, status, end_date, id")
+})
 public class Subscription {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Sequence ids (allocated in blocks) let Hibernate batch INSERTs, unlike IDENTITY
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "subscription_seq")
+    @SequenceGenerator(name = "subscription_seq", sequenceName = "subscription_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne
-    @JoinColumn(name = "user_id", unique = true) // One active subscription per user? Or just OneToOne for simplicity.
+    @JoinColumn(name = "user_id") // One active subscription per user? Or just OneToOne for simplicity.
     private User user;
 
     @ManyToOne
@@ -34,11 +47,21 @@ public class Subscription {
     private Plan plan;
 
     private LocalDate startDate;
+    @Column(name = "end_date")
     private LocalDate endDate;
 
     @Enumerated(EnumType.STRING)
+    @Column(name = "status")
     private SubscriptionStatus status;
 
+    // Plan a scheduled downgrade switches to at end_date
+    @Column(name = "pending_plan_id")
+    private Long pendingPlanId;
+
+    // Renewed at end_date by RenewalJob instead of expiring
+    @Column(name = "auto_renew", columnDefinition = "boolean default false not null")
+    private boolean autoRenew;
+
     @Version
     private Long version; // Optimistic locking
 }
@@ -0,0 +1,10 @@
+package com.firstclub.membership.model;
+
+public enum SubscriptionEventType {
+    SUBSCRIBED,
+    PLAN_CHANGED,
+    PLAN_CHANGE_SCHEDULED,
+    CANCELLED,
+    RENEWED,
+    EXPIRED
+}
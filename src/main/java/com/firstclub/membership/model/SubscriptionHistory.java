@@ -0,0 +1,86 @@
+package com.firstclub.membership.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One subscription change, appended and never updated. Rows are inserted with
+ * JDBC batches by SubscriptionHistoryWriter; the mapping exists for the schema
+ * and for reads. The primary key is (recorded_on, id) and there are no foreign
+ * keys, so the table can be range partitioned by day and old partitions
+ * dropped without touching the live subscription table.
+ */
+@Entity
+@IdClass(SubscriptionHistoryId.class)
+@Immutable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "subscription_history", indexes = {
+        // A user's history, newest first (keyset on id). Covering: it also holds every
+        // column the history page selects, so a page is read from the index alone
+        @Index(name = "idx_history_user", columnList = "user_id, id, recorded_on, subscription_id, event_type,"
+                + " plan_id, tier_id, status, start_date, end_date, recorded_at"),
+        // Finance / churn scans over a date range
+        @Index(name = "idx_history_day", columnList = "recorded_on, event_type, id")
+})
+public class SubscriptionHistory {
+    @Id
+    // Ids are taken in pooled-lo blocks by the writer
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "subscription_history_seq")
+    @SequenceGenerator(name = "subscription_history_seq", sequenceName = "subscription_history_seq",
+            allocationSize = 50)
+    private Long id;
+
+    // Hibernate orders key columns by attribute name; "day" sorts first, so the
+    // primary key is (recorded_on, id)
+    @Id
+    @Column(name = "recorded_on", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "subscription_id")
+    private Long subscriptionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", length = 40)
+    private SubscriptionEventType eventType;
+
+    @Column(name = "plan_id")
+    private Long planId;
+
+    @Column(name = "tier_id")
+    private Long tierId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private SubscriptionStatus status;
+
+    @Column(name = "start_date")
+    private LocalDate startDate;
+
+    @Column(name = "end_date")
+    private LocalDate endDate;
+}
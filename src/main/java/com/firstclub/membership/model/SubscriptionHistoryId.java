@@ -0,0 +1,19 @@
+package com.firstclub.membership.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Primary key of {@link SubscriptionHistory}: the partition day first, then the row id.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriptionHistoryId implements Serializable {
+    private LocalDate day;
+    private Long id;
+}
@@ -0,0 +1,46 @@
+package com.firstclub.membership.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A user whose subscription changed, so other nodes drop it from their cache.
+ * Written with JDBC by SubscriptionInvalidationLog in the transaction of the
+ * change, on the user's shard; the mapping exists for the schema.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+// Polled and purged by time
+@Table(name = "subscription_invalidation", indexes = @Index(name = "idx_invalidation_changed_at",
+        columnList = "changed_at"))
+public class SubscriptionInvalidation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "subscription_invalidation_seq")
+    @SequenceGenerator(name = "subscription_invalidation_seq", sequenceName = "subscription_invalidation_seq",
+            allocationSize = 1)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Node that made the change; it keeps its own write-through entry
+    @Column(name = "node_id", length = 36, nullable = false)
+    private String nodeId;
+
+    // Database clock, so nodes with skewed clocks agree on the poll window
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+}
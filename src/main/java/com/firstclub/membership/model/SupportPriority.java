@@ -0,0 +1,7 @@
+package com.firstclub.membership.model;
+
+// Ordered from lowest to highest priority
+public enum SupportPriority {
+    STANDARD,
+    PRIORITY
+}
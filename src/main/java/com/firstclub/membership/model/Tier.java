@@ -6,6 +6,7 @@ import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -16,10 +17,13 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import com.firstclub.membership.service.CatalogChangeListener;
+
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@EntityListeners(CatalogChangeListener.class)
 public class Tier {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -33,7 +37,8 @@ public class Tier {
     private double minTotalSpent;
     private String requiredCohort; // e.g. "STUDENT", "VIP", or null/empty for all
 
-    // Configurable Benefits (e.g., "DISCOUNT" -> "5%", "DELIVERY" -> "FREE")
+    // Configurable Benefits (e.g., "DISCOUNT" -> "5%", "DELIVERY" -> "FREE_ALL"), keys in BenefitKey.
+    // Parsed into typed values when TierSnapshot is built.
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "tier_benefits", joinColumns = @JoinColumn(name = "tier_id"))
     @MapKeyColumn(name = "benefit_name")
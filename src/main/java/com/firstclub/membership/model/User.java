@@ -1,22 +1,32 @@
 package com.firstclub.membership.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import com.firstclub.membership.service.UserTierListener;
+
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "users") // User is reserved in H2 often
+@EntityListeners(UserTierListener.class)
+@Table(name = "users", // User is reserved in H2 often
+        indexes = @Index(name = "idx_users_email", columnList = "email"))
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // One id per call: with sharding, each shard's sequence hands out its own residue class
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 1)
     private Long id;
 
     private String name;
@@ -25,5 +35,15 @@ public class User {
     // Criteria stats
     private int totalOrders;
     private double totalSpent;
-    private String cohort; // e.g. "STUDENT"
+    // Bit i set = member of the cohort with id i (see Cohort)
+    @Column(name = "cohort_mask", columnDefinition = "bigint default 0 not null")
+    private long cohortMask;
+
+    // Tier the user currently qualifies for, maintained by TierCrossingDetector
+    @Column(name = "current_tier_id")
+    private Long currentTierId;
+
+    public User(Long id, String name, String email, int totalOrders, double totalSpent, long cohortMask) {
+        this(id, name, email, totalOrders, totalSpent, cohortMask, null);
+    }
 }
@@ -0,0 +1,10 @@
+package com.firstclub.membership.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.firstclub.membership.model.Cohort;
+
+@Repository
+public interface CohortRepository extends JpaRepository<Cohort, Integer> {
+}
@@ -0,0 +1,11 @@
+package com.firstclub.membership.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.firstclub.membership.model.OutboxEvent;
+
+// Writes only; the relay reads and claims rows with plain JDBC
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+}
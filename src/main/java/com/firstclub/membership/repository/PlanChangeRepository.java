@@ -0,0 +1,13 @@
+package com.firstclub.membership.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.firstclub.membership.model.PlanChange;
+
+@Repository
+public interface PlanChangeRepository extends JpaRepository<PlanChange, Long> {
+    List<PlanChange> findBySubscriptionIdOrderByIdAsc(Long subscriptionId);
+}
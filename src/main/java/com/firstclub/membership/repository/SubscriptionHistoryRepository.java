@@ -0,0 +1,26 @@
+package com.firstclub.membership.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.firstclub.membership.dto.SubscriptionHistoryEntry;
+import com.firstclub.membership.model.SubscriptionHistory;
+import com.firstclub.membership.model.SubscriptionHistoryId;
+
+@Repository
+public interface SubscriptionHistoryRepository extends JpaRepository<SubscriptionHistory, SubscriptionHistoryId> {
+
+    // Keyset page over idx_history_user: seeks to (user_id, beforeId) and walks back
+    @Query("select new com.firstclub.membership.dto.SubscriptionHistoryEntry(h.id, h.subscriptionId, h.eventType,"
+            + " h.planId, h.tierId, h.status, h.startDate, h.endDate, h.recordedAt)"
+            + " from SubscriptionHistory h where h.userId = :userId and h.id < :beforeId"
+            + " and h.day >= :from and h.day <= :to order by h.id desc")
+    List<SubscriptionHistoryEntry> findPage(@Param("userId") Long userId, @Param("beforeId") Long beforeId,
+            @Param("from") LocalDate from, @Param("to") LocalDate to, Pageable pageable);
+}
@@ -1,14 +1,70 @@
 package com.firstclub.membership.repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.firstclub.membership.dto.SubscriptionView;
 import com.firstclub.membership.model.Subscription;
+import com.firstclub.membership.model.SubscriptionStatus;
 import com.firstclub.membership.model.User;
 
 @Repository
 public interface SubscriptionRepository extends JpaRepository<Subscription, Long> {
     Optional<Subscription> findByUser(User user);
+
+    // Single JOIN straight into the response shape, no entity graph
+    @Query("select new com.firstclub.membership.dto.SubscriptionView(s.id, u.id, p.id, t.id, t.name, p.duration,"
+            + " s.startDate, s.endDate, s.status, s.autoRenew, s.pendingPlanId)"
+            + " from Subscription s join s.user u join s.plan p join p.tier t where u.id = :userId")
+    Optional<SubscriptionView> findViewByUserId(@Param("userId") Long userId);
+
+    @Query("select new com.firstclub.membership.dto.SubscriptionView(s.id, u.id, p.id, t.id, t.name, p.duration,"
+            + " s.startDate, s.endDate, s.status, s.autoRenew, s.pendingPlanId)"
+            + " from Subscription s join s.user u join s.plan p join p.tier t where s.id in :ids and s.status = :status")
+    List<SubscriptionView> findViewsByIdInAndStatus(@Param("ids") Collection<Long> ids,
+            @Param("status") SubscriptionStatus status);
+
+    @Query("select s from Subscription s join fetch s.user u where u.id in :userIds")
+    List<Subscription> findByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    @Query("select s.status, count(s) from Subscription s group by s.status")
+    List<Object[]> countGroupedByStatus();
+
+    // Ids only, so a sweep never pulls entities into the persistence context.
+    // Auto-renewing rows are left to the renewal queue until renewBefore.
+    @Query("select s.id from Subscription s where s.status = :status and s.endDate < :date"
+            + " and (s.autoRenew = false or s.endDate < :renewBefore)")
+    List<Long> findExpirableIds(@Param("status") SubscriptionStatus status, @Param("date") LocalDate date,
+            @Param("renewBefore") LocalDate renewBefore, Pageable pageable);
+
+    // Set-based transition; bumps the version so concurrent entity writes fail their optimistic check
+    @Modifying
+    @Query("update Subscription s set s.status = :to, s.version = s.version + 1"
+            + " where s.id in :ids and s.status = :from and s.endDate < :date"
+            + " and (s.autoRenew = false or s.endDate < :renewBefore)")
+    int transitionStatus(@Param("ids") List<Long> ids, @Param("from") SubscriptionStatus from,
+            @Param("to") SubscriptionStatus to, @Param("date") LocalDate date,
+            @Param("renewBefore") LocalDate renewBefore);
+
+    // Renewal queue load: keyset pages over (end_date, id) of idx_subscription_renewal
+    @Query("select s.id, s.endDate from Subscription s where s.autoRenew = true and s.status = :status"
+            + " and s.endDate <= :dueBy"
+            + " and (s.endDate > :afterDate or (s.endDate = :afterDate and s.id > :afterId))"
+            + " order by s.endDate, s.id")
+    List<Object[]> findRenewalsDue(@Param("status") SubscriptionStatus status, @Param("dueBy") LocalDate dueBy,
+            @Param("afterDate") LocalDate afterDate, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select s from Subscription s join fetch s.user join fetch s.plan"
+            + " where s.id in :ids and s.autoRenew = true and s.status = :status and s.endDate <= :dueBy")
+    List<Subscription> findRenewable(@Param("ids") Collection<Long> ids, @Param("status") SubscriptionStatus status,
+            @Param("dueBy") LocalDate dueBy);
 }
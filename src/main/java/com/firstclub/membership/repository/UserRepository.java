@@ -3,6 +3,8 @@ package com.firstclub.membership.repository;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.firstclub.membership.model.User;
@@ -10,4 +12,8 @@ import com.firstclub.membership.model.User;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    @Query("select u.currentTierId as currentTierId, u.totalOrders as totalOrders, u.totalSpent as totalSpent,"
+            + " u.cohortMask as cohortMask from User u where u.id = :id")
+    Optional<UserTierStats> findTierStatsById(@Param("id") Long id);
 }
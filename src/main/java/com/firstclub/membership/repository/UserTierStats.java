@@ -0,0 +1,14 @@
+package com.firstclub.membership.repository;
+
+/**
+ * Projection of the user columns tier eligibility needs.
+ */
+public interface UserTierStats {
+    Long getCurrentTierId();
+
+    int getTotalOrders();
+
+    double getTotalSpent();
+
+    long getCohortMask();
+}
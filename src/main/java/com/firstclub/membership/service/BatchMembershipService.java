@@ -0,0 +1,198 @@
+package com.firstclub.membership.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.firstclub.membership.dto.BatchItemResult;
+import com.firstclub.membership.dto.BatchOperation;
+import com.firstclub.membership.dto.PlanChangeQuote;
+import com.firstclub.membership.dto.SubscriptionView;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.Subscription;
+import com.firstclub.membership.model.SubscriptionEventType;
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.PlanRepository;
+import com.firstclub.membership.repository.SubscriptionRepository;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.shard.ShardContext;
+import com.firstclub.membership.shard.ShardRouter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies many subscribe/cancel operations at once. Operations are grouped by
+ * shard and processed in chunks; each chunk resolves its users and subscriptions with IN queries, runs
+ * the same rules as {@link MembershipService} in memory and is written in one
+ * transaction, which Hibernate flushes as JDBC batches.
+ */
+@Slf4j
+@Service
+public class BatchMembershipService {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PlanRepository planRepository;
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+    @Autowired
+    private PlanCatalog planCatalog;
+    @Autowired
+    private SubscriptionCache subscriptionCache;
+    @Autowired
+    private MembershipMetrics membershipMetrics;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ShardRouter shardRouter;
+    @Autowired
+    private OutboxWriter outboxWriter;
+    @Autowired
+    private PlanChangeService planChangeService;
+
+    @Value("${membership.batch.chunk-size:500}")
+    private int chunkSize;
+    @Value("${membership.batch.max-operations:100000}")
+    private int maxOperations;
+
+    public List<BatchItemResult> execute(List<BatchOperation> operations) {
+        if (operations.size() > maxOperations) {
+            // The client's to fix, not a server error
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Batch too large, at most " + maxOperations + " operations allowed");
+        }
+        BatchItemResult[] results = new BatchItemResult[operations.size()];
+
+        // Requests in one chunk must live on one shard; order within a user is kept
+        Map<Integer, List<Integer>> indexesByShard = new TreeMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation op = operations.get(i);
+            if (op == null || op.type() == null || op.userId() == null) {
+                results[i] = BatchItemResult.failed(i, op == null ? null : op.userId(), "Invalid operation");
+                continue;
+            }
+            indexesByShard.computeIfAbsent(shardRouter.shardFor(op.userId()), s -> new ArrayList<>()).add(i);
+        }
+
+        indexesByShard.forEach((shard, indexes) -> {
+            for (int from = 0; from < indexes.size(); from += chunkSize) {
+                List<Integer> chunk = indexes.subList(from, Math.min(from + chunkSize, indexes.size()));
+                try {
+                    ShardContext.runOn(shard, () -> transactionTemplate
+                            .executeWithoutResult(status -> processChunk(operations, chunk, results)));
+                } catch (RuntimeException e) {
+                    // The chunk was rolled back, so nothing in it was applied
+                    log.warn("Batch chunk of {} operations on shard {} failed", chunk.size(), shard, e);
+                    for (int i : chunk) {
+                        results[i] = BatchItemResult.failed(i, operations.get(i).userId(),
+                                "Chunk rolled back: " + e.getMessage());
+                    }
+                }
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    private void processChunk(List<BatchOperation> operations, List<Integer> chunk, BatchItemResult[] results) {
+        Set<Long> userIds = new HashSet<>();
+        for (int i : chunk) {
+            userIds.add(operations.get(i).userId());
+        }
+
+        Map<Long, User> users = new HashMap<>();
+        Map<Long, Subscription> subscriptions = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            for (User user : userRepository.findAllById(userIds)) {
+                users.put(user.getId(), user);
+            }
+            for (Subscription sub : subscriptionRepository.findByUserIdIn(userIds)) {
+                subscriptions.put(sub.getUser().getId(), sub);
+            }
+        }
+
+        PlanSnapshot catalog = planCatalog.snapshot();
+        TierSnapshot tiers = catalog.getTiers();
+        LocalDate today = LocalDate.now();
+        Map<Long, Subscription> touched = new HashMap<>();
+
+        for (int i : chunk) {
+            BatchOperation op = operations.get(i);
+            Subscription sub = subscriptions.get(op.userId());
+            if (op.type() == BatchOperation.Type.CANCEL) {
+                if (sub == null) {
+                    results[i] = BatchItemResult.failed(i, op.userId(), "No subscription found");
+                    continue;
+                }
+                sub.setStatus(SubscriptionStatus.CANCELLED);
+                touched.put(op.userId(), sub);
+                outboxWriter.append(SubscriptionEventType.CANCELLED, SubscriptionView.of(sub, planOf(catalog, sub)));
+                results[i] = BatchItemResult.ok(i, op.userId(), sub.getId());
+                continue;
+            }
+
+            User user = users.get(op.userId());
+            if (user == null) {
+                results[i] = BatchItemResult.failed(i, op.userId(), "User not found");
+                continue;
+            }
+            Plan plan = catalog.plan(op.planId());
+            if (plan == null) {
+                results[i] = BatchItemResult.failed(i, op.userId(), "Plan not found");
+                continue;
+            }
+            int eligible = tiers.currentIndex(user.getCurrentTierId(), user.getTotalOrders(), user.getTotalSpent(),
+                    user.getCohortMask());
+            if (plan.getTier().getMinTotalSpent() > tiers.tierAt(eligible).getMinTotalSpent()) {
+                membershipMetrics.eligibilityRejected();
+                results[i] = BatchItemResult.failed(i, op.userId(), "User not eligible for this Tier yet.");
+                continue;
+            }
+
+            PlanChangeQuote quote = planChangeService.quote(catalog,
+                    sub == null ? null : SubscriptionView.of(sub, planOf(catalog, sub)), plan, today);
+            if (sub == null) {
+                sub = new Subscription();
+                sub.setUser(user);
+                subscriptions.put(op.userId(), sub);
+            }
+            // Catalog plans are detached; link the managed reference instead
+            SubscriptionEventType eventType = planChangeService.apply(sub, quote,
+                    planRepository.getReferenceById(plan.getId()));
+            if (eventType != null) {
+                if (sub.getId() == null) {
+                    subscriptionRepository.save(sub); // sequence id assigned now, INSERT deferred to flush
+                }
+                planChangeService.record(sub, quote);
+                touched.put(op.userId(), sub);
+                outboxWriter.append(eventType, SubscriptionView.of(sub, planOf(catalog, sub)));
+            }
+            results[i] = BatchItemResult.ok(i, op.userId(), sub.getId());
+        }
+
+        touched.forEach((userId, sub) -> {
+            Plan plan = planOf(catalog, sub);
+            subscriptionCache.writeThroughAfterCommit(userId, () -> SubscriptionView.of(sub, plan));
+        });
+    }
+
+    // Plan association may be an uninitialized proxy; describe it from the catalog
+    private static Plan planOf(PlanSnapshot catalog, Subscription sub) {
+        Plan cataloged = catalog.plan(sub.getPlan().getId());
+        return cataloged != null ? cataloged : sub.getPlan();
+    }
+}
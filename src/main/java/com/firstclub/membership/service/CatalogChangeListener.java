@@ -0,0 +1,53 @@
+package com.firstclub.membership.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import com.firstclub.membership.model.CatalogChange;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.Tier;
+
+/**
+ * JPA entity listener for catalog entities. Hibernate resolves it through
+ * Spring's bean container, so it can invalidate the in-memory catalogs and
+ * record the change in the {@link CatalogChangeLog} for the other nodes and
+ * copy it to the other shards.
+ */
+@Component
+public class CatalogChangeListener {
+
+    // Lazy: listeners are created while the EntityManagerFactory itself is
+    // being built, before the repositories behind the catalogs exist.
+    @Lazy
+    @Autowired
+    private TierCatalog tierCatalog;
+    @Lazy
+    @Autowired
+    private PlanCatalog planCatalog;
+    @Lazy
+    @Autowired
+    private CatalogChangeLog catalogChangeLog;
+    @Lazy
+    @Autowired
+    private CatalogReplicator catalogReplicator;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (entity instanceof Tier tier) {
+            catalogChangeLog.record(CatalogChange.TIER, tier.getId());
+            catalogReplicator.replicateAfterCommit(CatalogChange.TIER, tier.getId());
+            tierCatalog.invalidateAfterCommit();
+        } else if (entity instanceof Plan plan) {
+            catalogChangeLog.record(CatalogChange.PLAN, plan.getId());
+            catalogReplicator.replicateAfterCommit(CatalogChange.PLAN, plan.getId());
+        }
+        planCatalog.invalidateAfterCommit();
+    }
+}
@@ -0,0 +1,58 @@
+package com.firstclub.membership.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.firstclub.membership.model.CatalogChange;
+
+/**
+ * Version-stamped log of catalog changes, read and written with plain JDBC so
+ * it can be used from JPA entity callbacks. The catalog is read from the
+ * default shard, so that is where the log lives.
+ */
+@Component
+public class CatalogChangeLog {
+
+    private static final String BUMP_SQL = "update catalog_version set version = version + 1 where id = 1";
+    private static final String INIT_SQL = "insert into catalog_version (id, version) values (1, 1)";
+    private static final String VERSION_SQL = "select version from catalog_version where id = 1";
+    private static final String INSERT_SQL =
+            "insert into catalog_change (version, entity_type, entity_id, changed_at) values (?, ?, ?, ?)";
+    private static final String CHANGES_SQL = "select version, entity_type, entity_id, changed_at"
+            + " from catalog_change where version > ? order by version";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Records a change in the current transaction and returns its version. The
+     * version row stays locked until commit, so later versions commit later.
+     */
+    public long record(String entityType, Long entityId) {
+        if (jdbcTemplate.update(BUMP_SQL) == 0) {
+            jdbcTemplate.update(INIT_SQL);
+        }
+        long version = currentVersion();
+        jdbcTemplate.update(INSERT_SQL, version, entityType, entityId, Timestamp.valueOf(LocalDateTime.now()));
+        return version;
+    }
+
+    /**
+     * Latest committed version, 0 before the first change.
+     */
+    public long currentVersion() {
+        List<Long> versions = jdbcTemplate.queryForList(VERSION_SQL, Long.class);
+        return versions.isEmpty() ? 0L : versions.get(0);
+    }
+
+    public List<CatalogChange> changesSince(long version) {
+        return jdbcTemplate.query(CHANGES_SQL, (rs, i) -> new CatalogChange(rs.getLong("version"),
+                rs.getString("entity_type"), rs.getObject("entity_id", Long.class),
+                rs.getTimestamp("changed_at").toLocalDateTime()), version);
+    }
+}
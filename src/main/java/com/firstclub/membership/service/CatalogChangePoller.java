@@ -0,0 +1,176 @@
+package com.firstclub.membership.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.firstclub.membership.dto.CatalogVersionView;
+import com.firstclub.membership.model.CatalogChange;
+import com.firstclub.membership.shard.ShardContext;
+import com.firstclub.membership.shard.ShardRouter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps this node's catalogs in step with edits made on any node. Each poll is
+ * a single-row read of the catalog version; only when it moved are the new
+ * change-log rows read, and only what they touch is dropped: a tier change
+ * rebuilds the tier snapshot (and with it the plans), a plan change only the
+ * plan catalog, plus the cached subscriptions of that tier or plan.
+ * <p>
+ * Each poll also reads every shard's {@link SubscriptionInvalidationLog} and
+ * evicts the users whose subscription another node changed. The window reaches
+ * back a grace period before the previous poll, so a change whose transaction
+ * committed late is still seen; ids already applied are skipped.
+ */
+@Slf4j
+@Component
+public class CatalogChangePoller {
+
+    @Autowired
+    private CatalogChangeLog catalogChangeLog;
+    @Autowired
+    private TierCatalog tierCatalog;
+    @Autowired
+    private PlanCatalog planCatalog;
+    @Autowired
+    private SubscriptionCache subscriptionCache;
+    @Autowired
+    private SubscriptionInvalidationLog subscriptionInvalidationLog;
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${membership.subscription-cache.invalidation-grace-ms:30000}")
+    private long invalidationGraceMs;
+    @Value("${membership.subscription-cache.invalidation-retention-seconds:3600}")
+    private long invalidationRetentionSeconds;
+
+    // Per shard: database time of the last poll and the log ids read by it
+    private final Map<Integer, Timestamp> invalidationsPolledAt = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Long>> invalidationsSeen = new ConcurrentHashMap<>();
+
+    // -1 until the first poll
+    private final AtomicLong appliedVersion = new AtomicLong(-1);
+    private final AtomicLong latestVersion = new AtomicLong();
+    private volatile LocalDateTime lastPolledAt;
+
+    public CatalogChangePoller(MeterRegistry registry) {
+        Gauge.builder("membership.catalog.version", appliedVersion, AtomicLong::get)
+                .description("Catalog change-log version applied on this node")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${membership.catalog.poll-interval-ms:1000}")
+    public void scheduledPoll() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            log.warn("Catalog change poll failed", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${membership.subscription-cache.invalidation-purge-ms:60000}")
+    public void purgeInvalidations() {
+        try {
+            shardRouter.onEachShard(shard -> subscriptionInvalidationLog.purge(new Timestamp(
+                    subscriptionInvalidationLog.now().getTime() - invalidationRetentionSeconds * 1000)));
+        } catch (RuntimeException e) {
+            log.warn("Subscription invalidation purge failed", e);
+        }
+    }
+
+    /**
+     * Applies catalog changes committed since the last poll and evicts the
+     * subscriptions other nodes changed.
+     *
+     * @return number of catalog changes applied
+     */
+    public synchronized int poll() {
+        evictChangedSubscriptions();
+        return applyCatalogChanges();
+    }
+
+    private void evictChangedSubscriptions() {
+        List<Set<Long>> changedUsers = shardRouter.onEachShard(this::readInvalidations);
+        for (Set<Long> userIds : changedUsers) {
+            userIds.forEach(subscriptionCache::invalidate);
+        }
+    }
+
+    // Runs routed to the shard
+    private Set<Long> readInvalidations(int shard) {
+        Timestamp now = subscriptionInvalidationLog.now();
+        Timestamp previous = invalidationsPolledAt.getOrDefault(shard, now);
+        Set<Long> seen = invalidationsSeen.getOrDefault(shard, Set.of());
+        Set<Long> ids = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        for (SubscriptionInvalidationLog.Entry entry : subscriptionInvalidationLog
+                .since(new Timestamp(previous.getTime() - invalidationGraceMs))) {
+            ids.add(entry.id());
+            // This node's own writes are already in its cache
+            if (!seen.contains(entry.id()) && !entry.nodeId().equals(subscriptionInvalidationLog.getNodeId())) {
+                userIds.add(entry.userId());
+            }
+        }
+        invalidationsPolledAt.put(shard, now);
+        invalidationsSeen.put(shard, ids);
+        return userIds;
+    }
+
+    private int applyCatalogChanges() {
+        long latest = ShardContext.callOn(0, catalogChangeLog::currentVersion);
+        latestVersion.set(latest);
+        lastPolledAt = LocalDateTime.now();
+        long applied = appliedVersion.get();
+        if (applied < 0) {
+            // Whatever was built before the first poll may predate the latest change
+            tierCatalog.invalidate();
+            appliedVersion.set(latest);
+            return 0;
+        }
+        if (latest <= applied) {
+            return 0;
+        }
+
+        List<CatalogChange> changes = ShardContext.callOn(0, () -> catalogChangeLog.changesSince(applied));
+        Set<Long> tierIds = new HashSet<>();
+        Set<Long> planIds = new HashSet<>();
+        long max = applied;
+        for (CatalogChange change : changes) {
+            if (CatalogChange.TIER.equals(change.getEntityType())) {
+                tierIds.add(change.getEntityId());
+            } else {
+                planIds.add(change.getEntityId());
+            }
+            max = Math.max(max, change.getVersion());
+        }
+        if (!tierIds.isEmpty()) {
+            tierCatalog.invalidate();
+        } else if (!planIds.isEmpty()) {
+            planCatalog.invalidate();
+        }
+        // Views carry tier and plan names
+        subscriptionCache.invalidateIf(view -> tierIds.contains(view.tierId()) || planIds.contains(view.planId()));
+        appliedVersion.set(max);
+        log.info("Applied catalog changes up to version {} ({} tiers, {} plans)", max, tierIds.size(),
+                planIds.size());
+        return changes.size();
+    }
+
+    public CatalogVersionView version() {
+        return new CatalogVersionView(Math.max(0, appliedVersion.get()), latestVersion.get(),
+                tierCatalog.snapshot().getVersion(), lastPolledAt);
+    }
+}
@@ -0,0 +1,151 @@
+package com.firstclub.membership.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.firstclub.membership.model.CatalogChange;
+import com.firstclub.membership.shard.ShardContext;
+import com.firstclub.membership.shard.ShardRouter;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the copies of the catalog on shards 1..n identical to shard 0, where
+ * catalog edits are made. Subscriptions reference plans by foreign key and the
+ * subscription views join plan and tier on the user's shard, so those copies
+ * must follow every edit, ids included.
+ * <p>
+ * Rows are copied as they are on shard 0 after the edit commits, so copies
+ * never get ahead of shard 0 and applying one twice is harmless. Catalog rows
+ * must therefore only be written on shard 0.
+ */
+@Slf4j
+@Component
+public class CatalogReplicator {
+
+    private static final String[] CATALOG_TABLES = { "tier", "tier_benefits", "plan" };
+
+    @Autowired
+    private ShardRouter shardRouter;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate ownTransaction;
+
+    @PostConstruct
+    void init() {
+        // Also used from afterCommit, where the committed transaction is still bound
+        ownTransaction = new TransactionTemplate(transactionManager);
+        ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Copies the tier or plan to the other shards once the current transaction
+     * commits. Writes made on another shard (e.g. seeding it) are not copied.
+     */
+    public void replicateAfterCommit(String entityType, Long id) {
+        Integer shard = ShardContext.current();
+        if (shardRouter.getShardCount() == 1 || id == null || (shard != null && shard != 0)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    replicate(entityType, id);
+                }
+            });
+        } else {
+            replicate(entityType, id);
+        }
+    }
+
+    private void replicate(String entityType, long id) {
+        try {
+            if (CatalogChange.TIER.equals(entityType)) {
+                copy("tier", "id", id, "tier_benefits", "tier_id");
+            } else if (CatalogChange.PLAN.equals(entityType)) {
+                copy("plan", "id", id, null, null);
+            }
+        } catch (DataAccessException e) {
+            // The edit itself is committed; the next startup sync repairs the copies
+            log.warn("Could not copy {} {} to the other shards", entityType, id, e);
+        }
+    }
+
+    private void copy(String table, String idColumn, long id, String childTable, String parentColumn) {
+        List<Map<String, Object>> rows = ShardContext.callOn(0, () -> ownTransaction.execute(status ->
+                jdbcTemplate.queryForList("select * from " + table + " where " + idColumn + " = ?", id)));
+        List<Map<String, Object>> children = childTable == null ? List.of()
+                : ShardContext.callOn(0, () -> ownTransaction.execute(status -> jdbcTemplate.queryForList(
+                        "select * from " + childTable + " where " + parentColumn + " = ?", id)));
+        shardRouter.onEachShard(shard -> shard == 0 ? null : ownTransaction.execute(status -> {
+            if (childTable != null) {
+                jdbcTemplate.update("delete from " + childTable + " where " + parentColumn + " = ?", id);
+            }
+            if (rows.isEmpty()) {
+                // Fails while subscriptions on that shard still use the plan; it stays there unused
+                jdbcTemplate.update("delete from " + table + " where " + idColumn + " = ?", id);
+            } else {
+                merge(table, idColumn, rows);
+            }
+            insert(childTable, children);
+            return null;
+        }));
+    }
+
+    /**
+     * Copies the whole catalog of shard 0 onto the other shards, e.g. a shard
+     * added to a running system or one that missed an edit.
+     */
+    public void syncAll() {
+        if (shardRouter.getShardCount() == 1) {
+            return;
+        }
+        List<List<Map<String, Object>>> tables = new ArrayList<>();
+        for (String table : CATALOG_TABLES) {
+            tables.add(ShardContext.callOn(0, () -> ownTransaction.execute(status ->
+                    jdbcTemplate.queryForList("select * from " + table))));
+        }
+        shardRouter.onEachShard(shard -> shard == 0 ? null : ownTransaction.execute(status -> {
+            merge("tier", "id", tables.get(0));
+            jdbcTemplate.update("delete from tier_benefits");
+            insert("tier_benefits", tables.get(1));
+            merge("plan", "id", tables.get(2));
+            return null;
+        }));
+    }
+
+    private void merge(String table, String idColumn, List<Map<String, Object>> rows) {
+        for (Map<String, Object> row : rows) {
+            jdbcTemplate.update("merge into " + table + " (" + String.join(", ", row.keySet()) + ") key ("
+                    + idColumn + ") values (" + placeholders(row.size()) + ")", row.values().toArray());
+        }
+    }
+
+    private void insert(String table, List<Map<String, Object>> rows) {
+        for (Map<String, Object> row : rows) {
+            jdbcTemplate.update("insert into " + table + " (" + String.join(", ", row.keySet()) + ") values ("
+                    + placeholders(row.size()) + ")", row.values().toArray());
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
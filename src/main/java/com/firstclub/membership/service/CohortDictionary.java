@@ -0,0 +1,186 @@
+package com.firstclub.membership.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.firstclub.membership.model.Cohort;
+import com.firstclub.membership.repository.CohortRepository;
+import com.firstclub.membership.shard.ShardContext;
+import com.firstclub.membership.shard.ShardRouter;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Interns cohort names to small int ids, which are bit positions in
+ * {@code users.cohort_mask}; at most 64 cohorts can exist. Names are compared
+ * case-insensitively. Lookups read an immutable map through a volatile field;
+ * only interning a new name locks and writes, to every shard so bit positions
+ * agree everywhere.
+ * <p>
+ * Shard 0 decides who gets a bit: a new cohort is inserted there first, and an
+ * existing row is never overwritten. When another node already took the bit or
+ * the name, the dictionary is reloaded and the name looked up again.
+ */
+@Component
+public class CohortDictionary {
+
+    public static final int MAX_COHORTS = Long.SIZE;
+
+    private static final String INSERT_SQL = "insert into cohort (id, name) values (?, ?)";
+    // The other shards copy what shard 0 accepted
+    private static final String COPY_SQL = "insert into cohort (id, name) select ?, ?"
+            + " where not exists (select 1 from cohort where id = ?)";
+
+    @Autowired
+    private CohortRepository cohortRepository;
+    @Autowired
+    private ShardRouter shardRouter;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate ownTransaction;
+    private volatile Map<String, Integer> idsByName;
+    private volatile String[] namesById;
+
+    @PostConstruct
+    void init() {
+        // A new cohort must survive a rollback of the caller, or the in-memory id would dangle
+        ownTransaction = new TransactionTemplate(transactionManager);
+        ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public static String normalize(String name) {
+        return name.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Id of the cohort, or -1 if there is no such cohort.
+     */
+    public int idOf(String name) {
+        if (name == null || name.isBlank()) {
+            return -1;
+        }
+        Integer id = loaded().get(normalize(name));
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Id of the cohort, created first if it does not exist yet.
+     */
+    public int intern(String name) {
+        int id = idOf(name);
+        return id >= 0 ? id : create(normalize(name));
+    }
+
+    /**
+     * Mask with the bits of all given cohorts; unknown names are interned.
+     */
+    public long maskOf(Collection<String> names) {
+        long mask = 0L;
+        for (String name : names) {
+            if (name != null && !name.isBlank()) {
+                mask |= 1L << intern(name);
+            }
+        }
+        return mask;
+    }
+
+    public List<String> namesOf(long mask) {
+        String[] names = loadedNames();
+        List<String> result = new ArrayList<>(Long.bitCount(mask));
+        for (long bits = mask; bits != 0; bits &= bits - 1) {
+            int id = Long.numberOfTrailingZeros(bits);
+            if (id < names.length && names[id] != null) {
+                result.add(names[id]);
+            }
+        }
+        return result;
+    }
+
+    public Map<String, Integer> all() {
+        return loaded();
+    }
+
+    private Map<String, Integer> loaded() {
+        Map<String, Integer> ids = idsByName;
+        if (ids == null) {
+            load();
+            ids = idsByName;
+        }
+        return ids;
+    }
+
+    private String[] loadedNames() {
+        loaded();
+        return namesById;
+    }
+
+    private synchronized void load() {
+        if (idsByName != null) {
+            return;
+        }
+        publish(ShardContext.callOn(0, () -> ownTransaction.execute(status -> cohortRepository.findAll())));
+    }
+
+    private synchronized int create(String name) {
+        for (int attempt = 1;; attempt++) {
+            Map<String, Integer> ids = loaded();
+            Integer existing = ids.get(name);
+            if (existing != null) {
+                return existing; // interned by another thread or node meanwhile
+            }
+            if (ids.size() >= MAX_COHORTS) {
+                throw new RuntimeException("Cohort limit of " + MAX_COHORTS + " reached, cannot add " + name);
+            }
+            int id = 0;
+            while (id < namesById.length && namesById[id] != null) {
+                id++;
+            }
+            int bit = id;
+            try {
+                ShardContext.runOn(0, () -> ownTransaction.executeWithoutResult(
+                        status -> jdbcTemplate.update(INSERT_SQL, bit, name)));
+            } catch (DuplicateKeyException e) {
+                if (attempt >= MAX_COHORTS) {
+                    throw e;
+                }
+                idsByName = null; // another node took the bit or the name: reload and look again
+                continue;
+            }
+            shardRouter.onEachShard(shard -> shard == 0 ? null
+                    : ownTransaction.execute(status -> jdbcTemplate.update(COPY_SQL, bit, name, bit)));
+
+            List<Cohort> cohorts = new ArrayList<>();
+            ids.forEach((n, i) -> cohorts.add(new Cohort(i, n)));
+            cohorts.add(new Cohort(bit, name));
+            publish(cohorts);
+            return bit;
+        }
+    }
+
+    private void publish(Collection<Cohort> cohorts) {
+        Map<String, Integer> ids = new HashMap<>();
+        String[] names = new String[MAX_COHORTS];
+        for (Cohort cohort : cohorts) {
+            ids.put(cohort.getName(), cohort.getId());
+            names[cohort.getId()] = cohort.getName();
+        }
+        namesById = names;
+        idsByName = Collections.unmodifiableMap(ids);
+    }
+}
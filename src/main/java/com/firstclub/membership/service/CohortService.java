@@ -0,0 +1,131 @@
+package com.firstclub.membership.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.firstclub.membership.dto.CohortUpdateResult;
+import com.firstclub.membership.shard.ShardContext;
+import com.firstclub.membership.shard.ShardRouter;
+
+/**
+ * Bulk cohort membership changes. Each chunk first selects (and locks) only the
+ * users whose bit actually flips, sets or clears it with BITOR / BITAND, and
+ * re-evaluates the tier of just those users against the new mask; users that
+ * already were (or were not) members are not touched.
+ */
+@Service
+public class CohortService {
+
+    // The bit is cast: H2 cannot type a bare parameter inside BITAND / BITOR
+    private static final String SELECT_WITHOUT_SQL = "select id, total_orders, total_spent, cohort_mask,"
+            + " current_tier_id from users where id in (:ids)"
+            + " and bitand(cohort_mask, cast(:bit as bigint)) = 0 for update";
+    private static final String SELECT_WITH_SQL = "select id, total_orders, total_spent, cohort_mask,"
+            + " current_tier_id from users where id in (:ids)"
+            + " and bitand(cohort_mask, cast(:bit as bigint)) <> 0 for update";
+    private static final String ADD_BIT_SQL =
+            "update users set cohort_mask = bitor(cohort_mask, cast(? as bigint)) where id = ?";
+    private static final String KEEP_BITS_SQL =
+            "update users set cohort_mask = bitand(cohort_mask, cast(? as bigint)) where id = ?";
+    private static final String SET_TIER_SQL = "update users set current_tier_id = ? where id = ?";
+
+    @Autowired
+    private CohortDictionary cohortDictionary;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private TierCrossingDetector tierCrossingDetector;
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${membership.cohorts.chunk-size:1000}")
+    private int chunkSize;
+    @Value("${membership.cohorts.max-users:100000}")
+    private int maxUsers;
+
+    public Map<String, Integer> cohorts() {
+        return cohortDictionary.all();
+    }
+
+    /**
+     * Adds the users to the cohort, creating the cohort if needed.
+     */
+    public CohortUpdateResult assign(String cohort, Collection<Long> userIds) {
+        int id = cohortDictionary.intern(cohort);
+        return update(cohort, id, userIds, true);
+    }
+
+    public CohortUpdateResult remove(String cohort, Collection<Long> userIds) {
+        int id = cohortDictionary.idOf(cohort);
+        if (id < 0) {
+            throw new RuntimeException("Cohort not found");
+        }
+        return update(cohort, id, userIds, false);
+    }
+
+    private CohortUpdateResult update(String cohort, int id, Collection<Long> userIds, boolean add) {
+        if (userIds.size() > maxUsers) {
+            throw new RuntimeException("Too many users, at most " + maxUsers + " per request");
+        }
+        long bit = 1L << id;
+        int changed = 0;
+        int tierChanged = 0;
+        for (Map.Entry<Integer, List<Long>> shard : shardRouter.groupByShard(new LinkedHashSet<>(userIds))
+                .entrySet()) {
+            List<Long> ids = shard.getValue();
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+                int[] counts = ShardContext.callOn(shard.getKey(),
+                        () -> transactionTemplate.execute(status -> updateChunk(chunk, bit, add)));
+                changed += counts[0];
+                tierChanged += counts[1];
+            }
+        }
+        return new CohortUpdateResult(CohortDictionary.normalize(cohort), id, userIds.size(), changed, tierChanged);
+    }
+
+    // {users changed, users that moved tier}
+    private int[] updateChunk(List<Long> userIds, long bit, boolean add) {
+        List<Long> affected = new ArrayList<>();
+        List<Object[]> tierChanges = new ArrayList<>();
+        namedParameterJdbcTemplate.query(add ? SELECT_WITHOUT_SQL : SELECT_WITH_SQL,
+                Map.of("ids", userIds, "bit", bit), rs -> {
+                    long userId = rs.getLong("id");
+                    long storedTierId = rs.getLong("current_tier_id");
+                    Long currentTierId = rs.wasNull() ? null : storedTierId;
+                    long mask = add ? rs.getLong("cohort_mask") | bit : rs.getLong("cohort_mask") & ~bit;
+                    affected.add(userId);
+                    Long newTierId = tierCrossingDetector.evaluate(userId, currentTierId, rs.getInt("total_orders"),
+                            rs.getDouble("total_spent"), mask);
+                    if (newTierId != null) {
+                        tierChanges.add(new Object[] { newTierId, userId });
+                    }
+                });
+        if (affected.isEmpty()) {
+            return new int[] { 0, 0 };
+        }
+        long operand = add ? bit : ~bit;
+        jdbcTemplate.batchUpdate(add ? ADD_BIT_SQL : KEEP_BITS_SQL, affected, affected.size(), (ps, userId) -> {
+            ps.setLong(1, operand);
+            ps.setLong(2, userId);
+        });
+        if (!tierChanges.isEmpty()) {
+            jdbcTemplate.batchUpdate(SET_TIER_SQL, tierChanges);
+        }
+        return new int[] { affected.size(), tierChanges.size() };
+    }
+}
@@ -0,0 +1,60 @@
+package com.firstclub.membership.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Re-runs a unit of work that lost a write race: an optimistic lock failure
+ * (stale {@code @Version}) or a unique key violation (e.g. two first subscribes
+ * for one user). The work must open its own transaction, so each attempt starts
+ * from fresh state. Backoff is exponential with jitter and capped; after the last
+ * attempt the failure is rethrown.
+ */
+@Slf4j
+@Component
+public class ConflictRetrier {
+
+    @Autowired
+    private MembershipMetrics membershipMetrics;
+
+    @Value("${membership.conflict-retry.max-attempts:4}")
+    private int maxAttempts;
+    @Value("${membership.conflict-retry.initial-backoff-ms:10}")
+    private long initialBackoffMs;
+    @Value("${membership.conflict-retry.max-backoff-ms:200}")
+    private long maxBackoffMs;
+
+    public <T> T run(Supplier<T> work) {
+        long backoff = initialBackoffMs;
+        for (int attempt = 1;; attempt++) {
+            try {
+                return work.get();
+            } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                membershipMetrics.conflictRetried();
+                log.debug("Write conflict on attempt {}, retrying: {}", attempt, e.getMessage());
+                sleep(ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1));
+                backoff = Math.min(backoff * 2, maxBackoffMs);
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while backing off", e);
+        }
+    }
+}
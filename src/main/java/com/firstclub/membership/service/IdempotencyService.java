@@ -0,0 +1,154 @@
+package com.firstclub.membership.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.firstclub.membership.model.IdempotencyRecord;
+import com.firstclub.membership.repository.IdempotencyRecordRepository;
+import com.firstclub.membership.shard.ShardRouter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs writes that carry an Idempotency-Key at most once. The outcome is stored
+ * in {@code idempotency_record} in the same transaction as the write; recent
+ * outcomes are also kept in a bounded in-memory index, so a client retry is
+ * answered without touching the database. Duplicates arriving at the same time
+ * queue on the user's lock and are answered from the first one's outcome.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private UserLocks userLocks;
+    @Autowired
+    private ConflictRetrier conflictRetrier;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MembershipMetrics membershipMetrics;
+    @Autowired
+    private ShardRouter shardRouter;
+
+    private final Cache<String, Outcome> index;
+    private final Duration retention;
+
+    private record Outcome(String request, byte[] response) {
+    }
+
+    public IdempotencyService(@Value("${membership.idempotency.index-size:100000}") long indexSize,
+            @Value("${membership.idempotency.retention-hours:24}") long retentionHours) {
+        this.retention = Duration.ofHours(retentionHours);
+        this.index = Caffeine.newBuilder()
+                .maximumSize(indexSize)
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    /**
+     * Runs {@code work} once per (operation, user, key). {@code work} must not open
+     * its own transaction; it joins the one the outcome is recorded in.
+     *
+     * @param request parameters of the call, a reused key must come with the same ones
+     */
+    public <T> T execute(String operation, Long userId, String key, String request, Class<T> responseType,
+            Supplier<T> work) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String recordKey = operation + ":" + userId + ":" + key;
+        Outcome known = index.getIfPresent(recordKey);
+        if (known != null) {
+            return replay(known, request, responseType);
+        }
+        // The lock is taken per attempt so a retry's backoff does not hold it
+        return conflictRetrier.run(() -> userLocks.withLock(userId, () -> {
+            Outcome done = index.getIfPresent(recordKey); // finished while we waited
+            if (done != null) {
+                return replay(done, request, responseType);
+            }
+            return transactionTemplate.execute(status -> {
+                Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findById(recordKey);
+                if (existing.isPresent()) {
+                    Outcome stored = new Outcome(existing.get().getRequest(), existing.get().getResponse());
+                    index.put(recordKey, stored);
+                    return replay(stored, request, responseType);
+                }
+                T result = work.get();
+                byte[] response = serialize(result);
+                idempotencyRecordRepository.save(
+                        new IdempotencyRecord(recordKey, userId, request, response, LocalDateTime.now()));
+                Outcome outcome = new Outcome(request, response);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        index.put(recordKey, outcome);
+                    }
+                });
+                return result;
+            });
+        }));
+    }
+
+    private <T> T replay(Outcome outcome, String request, Class<T> responseType) {
+        if (!Objects.equals(outcome.request(), request)) {
+            // A client error, not a server fault: the key must not be reused for another request
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used with different parameters");
+        }
+        membershipMetrics.idempotentReplay();
+        if (outcome.response() == null || outcome.response().length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(outcome.response(), responseType);
+        } catch (Exception e) {
+            throw new RuntimeException("Stored idempotent response is unreadable", e);
+        }
+    }
+
+    private byte[] serialize(Object result) {
+        if (result == null) {
+            return new byte[0];
+        }
+        try {
+            return objectMapper.writeValueAsBytes(result);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to store idempotent response", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${membership.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int purged = shardRouter.onEachShard(shard -> transactionTemplate
+                .execute(status -> idempotencyRecordRepository.deleteCreatedBefore(cutoff)))
+                .stream().mapToInt(Integer::intValue).sum();
+        if (purged > 0) {
+            log.info("Purged {} idempotency records older than {}", purged, cutoff);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.firstclub.membership.service;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.firstclub.membership.repository.SubscriptionRepository;
+import com.firstclub.membership.shard.ShardRouter;
+
+/**
+ * Reporting across the whole membership store. Queries are scattered to every
+ * shard and the partial results merged here.
+ */
+@Service
+public class MembershipAdminService {
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    public Map<SubscriptionStatus, Long> subscriptionStatusCounts() {
+        Map<SubscriptionStatus, Long> totals = new EnumMap<>(SubscriptionStatus.class);
+        for (SubscriptionStatus status : SubscriptionStatus.values()) {
+            totals.put(status, 0L);
+        }
+        List<List<Object[]>> perShard = shardRouter.onEachShard(shard -> subscriptionRepository.countGroupedByStatus());
+        for (List<Object[]> rows : perShard) {
+            for (Object[] row : rows) {
+                totals.merge((SubscriptionStatus) row[0], (Long) row[1], Long::sum);
+            }
+        }
+        return totals;
+    }
+}
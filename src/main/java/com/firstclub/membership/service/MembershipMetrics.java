@@ -0,0 +1,71 @@
+package com.firstclub.membership.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.firstclub.membership.event.TierChangedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Business counters of the membership flows. Meters are registered once and
+ * kept, so the hot path only pays for an increment.
+ */
+@Component
+public class MembershipMetrics {
+
+    private final Counter upgrades;
+    private final Counter downgrades;
+    private final Counter eligibilityRejections;
+    private final Counter conflictRetries;
+    private final Counter idempotentReplays;
+    private final Counter droppedOrders;
+    private final Timer eligibilityChecks;
+
+    public MembershipMetrics(MeterRegistry registry) {
+        this.upgrades = Counter.builder("membership.tier.changes").tag("direction", "upgrade")
+                .description("Users moved to a higher tier").register(registry);
+        this.downgrades = Counter.builder("membership.tier.changes").tag("direction", "downgrade")
+                .description("Users moved to a lower tier").register(registry);
+        this.eligibilityRejections = Counter.builder("membership.eligibility.rejections")
+                .description("Subscribe attempts for a tier above the user's eligible tier").register(registry);
+        this.conflictRetries = Counter.builder("membership.conflict.retries")
+                .description("Writes retried after an optimistic lock or unique key conflict").register(registry);
+        this.idempotentReplays = Counter.builder("membership.idempotency.replays")
+                .description("Requests answered from a stored idempotency record").register(registry);
+        this.droppedOrders = Counter.builder("membership.orders.dropped")
+                .description("Recorded orders whose user no longer existed at flush time").register(registry);
+        // Not an @Timed method: it is mostly called from inside MembershipService, past the proxy
+        this.eligibilityChecks = Timer.builder("membership.eligibility.checks")
+                .description("Tier eligibility calculations").publishPercentileHistogram().register(registry);
+    }
+
+    @EventListener
+    public void onTierChanged(TierChangedEvent event) {
+        (event.upgrade() ? upgrades : downgrades).increment();
+    }
+
+    public void eligibilityRejected() {
+        eligibilityRejections.increment();
+    }
+
+    public void conflictRetried() {
+        conflictRetries.increment();
+    }
+
+    public void idempotentReplay() {
+        idempotentReplays.increment();
+    }
+
+    public void ordersDropped(long orders) {
+        droppedOrders.increment(orders);
+    }
+
+    public void eligibilityChecked(long startNanos) {
+        eligibilityChecks.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
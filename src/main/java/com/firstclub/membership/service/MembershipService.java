@@ -3,59 +3,131 @@ package com.firstclub.membership.service;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import io.micrometer.core.annotation.Timed;
+
+import com.firstclub.membership.dto.Benefits;
+import com.firstclub.membership.dto.PlanChangeQuote;
+import com.firstclub.membership.dto.SubscriptionView;
 import com.firstclub.membership.model.MembershipDuration;
 import com.firstclub.membership.model.Plan;
 import com.firstclub.membership.model.Subscription;
+import com.firstclub.membership.model.SubscriptionEventType;
 import com.firstclub.membership.model.SubscriptionStatus;
 import com.firstclub.membership.model.Tier;
 import com.firstclub.membership.model.User;
 import com.firstclub.membership.repository.PlanRepository;
 import com.firstclub.membership.repository.SubscriptionRepository;
-import com.firstclub.membership.repository.TierRepository;
 import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.repository.UserTierStats;
+import com.firstclub.membership.shard.RoutedByUser;
 
 @Service
 public class MembershipService {
 
+    private static final String VIEW_SQL = "select s.id, s.user_id, s.plan_id, p.tier_id, t.name tier_name,"
+            + " p.duration, s.start_date, s.end_date, s.status, s.auto_renew, s.pending_plan_id"
+            + " from subscription s join plan p on p.id = s.plan_id join tier t on t.id = p.tier_id"
+            + " where s.user_id = ?";
+
     @Autowired
     private UserRepository userRepository;
     @Autowired
     private PlanRepository planRepository;
     @Autowired
-    private TierRepository tierRepository;
-    @Autowired
     private SubscriptionRepository subscriptionRepository;
+    @Autowired
+    private TierCatalog tierCatalog;
+    @Autowired
+    private PlanCatalog planCatalog;
+    @Autowired
+    private SubscriptionCache subscriptionCache;
+    @Autowired
+    private SubscriptionInvalidationLog subscriptionInvalidationLog;
+    @Autowired
+    private MembershipMetrics membershipMetrics;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserLocks userLocks;
+    @Autowired
+    private ConflictRetrier conflictRetrier;
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private OutboxWriter outboxWriter;
+    @Autowired
+    private PlanChangeService planChangeService;
+
+    // Created once, not per cache lookup
+    private final Function<Long, Optional<SubscriptionView>> subscriptionLoader = this::loadSubscription;
 
     /**
      * Get all plans available for the user based on their eligibility.
      */
+    @Timed(value = "membership.service", extraTags = { "operation", "getAvailablePlans" }, histogram = true)
+    @RoutedByUser
     public List<Plan> getAvailablePlans(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        PlanSnapshot catalog = planCatalog.snapshot();
+        // Plans for the eligible tier AND any lower tiers (Downgrade options),
+        // prebuilt per tier rank.
+        return catalog.plansFor(eligibleRank(catalog.getTiers(), userId));
+    }
 
-        // Determine eligible tier
-        Tier eligibleTier = calculateEligibleTier(user);
+    /**
+     * Same as {@link #getAvailablePlans(Long)}, as the pre-serialized JSON body.
+     */
+    @Timed(value = "membership.service", extraTags = { "operation", "getAvailablePlansJson" }, histogram = true)
+    @RoutedByUser
+    public byte[] getAvailablePlansJson(Long userId) {
+        PlanSnapshot catalog = planCatalog.snapshot();
+        return catalog.plansJsonFor(eligibleRank(catalog.getTiers(), userId));
+    }
 
-        // Logic: A user qualifies for a Tier.
-        // We return plans for the eligible tier AND any lower tiers (Downgrade
-        // options).
-        return planRepository.findAll().stream()
-                .filter(p -> p.getTier().getMinTotalSpent() <= eligibleTier.getMinTotalSpent())
-                .collect(Collectors.toList());
+    private int eligibleRank(TierSnapshot tiers, Long userId) {
+        UserTierStats user = userRepository.findTierStatsById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        return tiers.currentIndex(user.getCurrentTierId(), user.getTotalOrders(), user.getTotalSpent(),
+                user.getCohortMask());
     }
 
     /**
      * Subscribe a user to a specific plan.
-     * Handles Upgrade/Downgrade if a subscription already exists.
+     * Handles Upgrade/Downgrade if a subscription already exists, priced by
+     * {@link PlanChangeService}; a downgrade is scheduled for the end of the period.
+     * Each attempt runs under the user's lock and is retried when it loses a write
+     * race; the lock is released while backing off between attempts.
      */
-    @Transactional
+    @Timed(value = "membership.service", extraTags = { "operation", "subscribe" }, histogram = true)
+    @RoutedByUser
     public Subscription subscribe(Long userId, Long planId) {
+        return conflictRetrier.run(() -> userLocks.withLock(userId,
+                () -> transactionTemplate.execute(status -> doSubscribe(userId, planId))));
+    }
+
+    /**
+     * {@link #subscribe(Long, Long)} at most once per idempotency key; a repeated
+     * key returns the original response. A null key subscribes unconditionally.
+     */
+    @Timed(value = "membership.service", extraTags = { "operation", "subscribeIdempotent" }, histogram = true)
+    @RoutedByUser
+    public SubscriptionView subscribe(Long userId, Long planId, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return SubscriptionView.of(subscribe(userId, planId));
+        }
+        return idempotencyService.execute("subscribe", userId, idempotencyKey, "planId=" + planId,
+                SubscriptionView.class, () -> SubscriptionView.of(doSubscribe(userId, planId)));
+    }
+
+    private Subscription doSubscribe(Long userId, Long planId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         Plan plan = planRepository.findById(planId)
@@ -88,92 +160,143 @@ public class MembershipService {
             // This implies I *can* choose.
             // So: Eligible Check: can I buy this tier?
             if (isTierHigher(plan.getTier(), eligibleTier)) {
+                membershipMetrics.eligibilityRejected();
                 throw new RuntimeException("User not eligible for this Tier yet.");
             }
         }
 
         Optional<Subscription> existingSubOpt = subscriptionRepository.findByUser(user);
+        PlanSnapshot catalog = planCatalog.snapshot();
+        PlanChangeQuote quote = planChangeService.quote(catalog, existingSubOpt.map(SubscriptionView::of).orElse(null),
+                plan, LocalDate.now());
 
-        Subscription subscription;
-        if (existingSubOpt.isPresent()) {
-            // Upgrade/Downgrade/Renewal
-            subscription = existingSubOpt.get();
-            // If active, we might adjust endDate or refund?
-            // "Upgrade, downgrade...".
-            // Simplest logic: End current, start new immediately.
-            subscription.setStatus(SubscriptionStatus.CANCELLED); // Or just overwrite
-            // Actually, keep the same object, update plan and dates.
-            subscription.setPlan(plan);
-            subscription.setStartDate(LocalDate.now());
-            subscription.setEndDate(calculateEndDate(LocalDate.now(), plan.getDuration()));
-            subscription.setStatus(SubscriptionStatus.ACTIVE);
-        } else {
-            subscription = new Subscription();
-            subscription.setUser(user);
-            subscription.setPlan(plan);
-            subscription.setStartDate(LocalDate.now());
-            subscription.setEndDate(calculateEndDate(LocalDate.now(), plan.getDuration()));
-            subscription.setStatus(SubscriptionStatus.ACTIVE);
+        Subscription subscription = existingSubOpt.orElseGet(() -> {
+            Subscription created = new Subscription();
+            created.setUser(user);
+            return created;
+        });
+        // Upgrade/switch now with credit for unused days, downgrade at the end of the period
+        SubscriptionEventType eventType = planChangeService.apply(subscription, quote, plan);
+        if (eventType == null) {
+            return subscription;
         }
 
-        return subscriptionRepository.save(subscription);
+        Subscription saved = subscriptionRepository.save(subscription);
+        planChangeService.record(saved, quote);
+        outboxWriter.append(eventType, SubscriptionView.of(saved));
+        subscriptionCache.writeThroughAfterCommit(userId, () -> SubscriptionView.of(saved));
+        return saved;
+    }
+
+    /**
+     * What changing to {@code planId} would cost right now, without changing anything.
+     * Priced in memory from the cached subscription and the plan catalog; only a
+     * cache miss reads the subscription, with one JDBC query outside any transaction,
+     * and nothing is written.
+     */
+    @Timed(value = "membership.service", extraTags = { "operation", "quotePlanChange" }, histogram = true)
+    @RoutedByUser
+    public PlanChangeQuote quotePlanChange(Long userId, Long planId) {
+        PlanSnapshot catalog = planCatalog.snapshot();
+        Plan plan = catalog.plan(planId);
+        if (plan == null) {
+            throw new RuntimeException("Plan not found");
+        }
+        return planChangeService.quote(catalog, subscriptionCache.get(userId, subscriptionLoader).orElse(null),
+                plan, LocalDate.now());
     }
 
-    @Transactional
+    @Timed(value = "membership.service", extraTags = { "operation", "cancelSubscription" }, histogram = true)
+    @RoutedByUser
     public void cancelSubscription(Long userId) {
+        conflictRetrier.run(() -> userLocks.withLock(userId,
+                () -> transactionTemplate.execute(status -> doCancel(userId))));
+    }
+
+    @Timed(value = "membership.service", extraTags = { "operation", "cancelSubscriptionIdempotent" }, histogram = true)
+    @RoutedByUser
+    public void cancelSubscription(Long userId, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            cancelSubscription(userId);
+            return;
+        }
+        idempotencyService.execute("cancel", userId, idempotencyKey, "", Void.class, () -> doCancel(userId));
+    }
+
+    private Void doCancel(Long userId) {
         Subscription sub = subscriptionRepository.findByUser(userRepository.getReferenceById(userId))
                 .orElseThrow(() -> new RuntimeException("No subscription found"));
         sub.setStatus(SubscriptionStatus.CANCELLED);
-        subscriptionRepository.save(sub);
+        Subscription saved = subscriptionRepository.save(sub);
+        outboxWriter.append(SubscriptionEventType.CANCELLED, SubscriptionView.of(saved));
+        subscriptionCache.writeThroughAfterCommit(userId, () -> SubscriptionView.of(saved));
+        return null;
     }
 
-    public Subscription getCurrentSubscription(Long userId) {
-        return subscriptionRepository.findByUser(userRepository.getReferenceById(userId))
-                .orElse(null);
+    /**
+     * Turns renewal at the end of the period on or off for the user's subscription.
+     */
+    @Timed(value = "membership.service", extraTags = { "operation", "setAutoRenew" }, histogram = true)
+    @RoutedByUser
+    public SubscriptionView setAutoRenew(Long userId, boolean autoRenew) {
+        return conflictRetrier.run(() -> userLocks.withLock(userId, () -> transactionTemplate.execute(status -> {
+            Subscription sub = subscriptionRepository.findByUser(userRepository.getReferenceById(userId))
+                    .orElseThrow(() -> new RuntimeException("No subscription found"));
+            sub.setAutoRenew(autoRenew);
+            Subscription saved = subscriptionRepository.save(sub);
+            subscriptionInvalidationLog.record(List.of(userId)); // no outbox event for this one
+            subscriptionCache.writeThroughAfterCommit(userId, () -> SubscriptionView.of(saved));
+            return SubscriptionView.of(saved);
+        })));
     }
 
     /**
-     * Determines user's eligible tier based on stats.
+     * Current subscription of the user, or null. Served from {@link SubscriptionCache}.
      */
-    public Tier calculateEligibleTier(User user) {
-        List<Tier> allTiers = tierRepository.findAll(); // Should be cached ideally
-        // Sort by criteria (highest first) to find best match
-        // Assuming higher ID = higher tier or use explicit rank.
-        // Let's assume explicit rank logic: Platinum > Gold > Silver
-        // We will infer order by criteria values.
-
-        Tier bestTier = null;
-        for (Tier t : allTiers) {
-            // Logic: User must meet BOTH or ANY? "Number of Order ... OR Total Order
-            // value".
-            // Prompt: "based on criteria like: Number of Order more than X, Total Order
-            // value..."
-            // Usually criteria are thresholds.
-            // Let's assume "OR" for flexibility, or "AND". Let's do AND for stricter, or OR
-            // for user friendly.
-            // Criteria check: Stats + Cohort
-            boolean statsMet = user.getTotalOrders() >= t.getMinOrderCount()
-                    && user.getTotalSpent() >= t.getMinTotalSpent();
-            boolean cohortMet = t.getRequiredCohort() == null || t.getRequiredCohort().isEmpty()
-                    || t.getRequiredCohort().equalsIgnoreCase(user.getCohort());
-
-            if (statsMet && cohortMet) {
-                if (bestTier == null || isTierHigher(t, bestTier)) {
-                    bestTier = t;
-                }
-            }
-        }
+    @Timed(value = "membership.service", extraTags = { "operation", "getCurrentSubscription" }, histogram = true)
+    @RoutedByUser
+    public SubscriptionView getCurrentSubscription(Long userId) {
+        return subscriptionCache.get(userId, subscriptionLoader).orElse(null);
+    }
 
-        // Default to lowest if none (should have a 'Base' tier? or just return Silver
-        // as default)
-        if (bestTier == null) {
-            return allTiers.stream().filter(t -> t.getName().equalsIgnoreCase("Silver")).findFirst()
-                    .orElseThrow(() -> new RuntimeException("Base Silver tier not found"));
+    /**
+     * Benefits of the user's active subscription. Answered from the subscription
+     * cache and the tier snapshot: on a cache hit there is no database access and
+     * the returned instance is shared, so nothing is allocated.
+     */
+    @RoutedByUser
+    public Benefits resolveBenefits(Long userId) {
+        Optional<SubscriptionView> view = subscriptionCache.get(userId, subscriptionLoader);
+        if (view.isEmpty() || view.get().status() != SubscriptionStatus.ACTIVE) {
+            return Benefits.NONE;
         }
-        return bestTier;
+        return tierCatalog.snapshot().benefitsOf(view.get().tierId());
+    }
+
+    // Plain JDBC, same projection as SubscriptionRepository.findViewByUserId: a cache miss
+    // on a read path takes one autocommit statement instead of a read-only transaction
+    private Optional<SubscriptionView> loadSubscription(Long userId) {
+        return jdbcTemplate.query(VIEW_SQL, (rs, i) -> new SubscriptionView(rs.getLong("id"), rs.getLong("user_id"),
+                rs.getLong("plan_id"), rs.getLong("tier_id"), rs.getString("tier_name"),
+                MembershipDuration.valueOf(rs.getString("duration")), rs.getObject("start_date", LocalDate.class),
+                rs.getObject("end_date", LocalDate.class), SubscriptionStatus.valueOf(rs.getString("status")),
+                rs.getBoolean("auto_renew"), rs.getObject("pending_plan_id", Long.class)), userId)
+                .stream().findFirst();
+    }
+
+    /**
+     * Determines user's eligible tier based on stats.
+     * Answered from the in-memory tier snapshot, no database round trip; the
+     * stored current tier is used as long as the stats still fit it.
+     */
+    public Tier calculateEligibleTier(User user) {
+        long start = System.nanoTime();
+        Tier tier = tierCatalog.snapshot().eligibleTier(user);
+        membershipMetrics.eligibilityChecked(start);
+        return tier;
     }
 
-    private LocalDate calculateEndDate(LocalDate start, MembershipDuration duration) {
+    static LocalDate calculateEndDate(LocalDate start, MembershipDuration duration) {
         switch (duration) {
             case MONTHLY:
                 return start.plusMonths(1);
@@ -0,0 +1,205 @@
+package com.firstclub.membership.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.firstclub.membership.shard.ShardContext;
+import com.firstclub.membership.shard.ShardRouter;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Order ingestion pipeline. Orders are only aggregated in memory per user;
+ * a scheduled flush adds the deltas to {@code users} with one batched
+ * {@code UPDATE ... SET total = total + ?}, so concurrent orders never lose
+ * updates and hot users do not serialize on a read-modify-write of their row.
+ * Only users that crossed a tier boundary get their stored tier rewritten.
+ * Orders for unknown users are rejected up front; orders of a user deleted
+ * before the flush are dropped, logged and counted.
+ */
+@Slf4j
+@Service
+public class OrderIngestionService {
+
+    private static final String ADD_STATS_SQL =
+            "update users set total_orders = total_orders + ?, total_spent = total_spent + ? where id = ?";
+    private static final String SELECT_STATS_SQL =
+            "select id, total_orders, total_spent, cohort_mask, current_tier_id from users where id in (:ids)";
+    private static final String SET_TIER_SQL = "update users set current_tier_id = ? where id = ?";
+    private static final String USER_EXISTS_SQL = "select count(*) from users where id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private TierCrossingDetector tierCrossingDetector;
+    @Autowired
+    private ShardRouter shardRouter;
+    @Autowired
+    private MembershipMetrics membershipMetrics;
+
+    @Value("${membership.orders.flush-batch-size:500}")
+    private int flushBatchSize;
+    @Value("${membership.orders.max-pending-users:100000}")
+    private int maxPendingUsers;
+
+    // Increments run inside compute(), which only locks the user's hash bin, and
+    // flush takes entries out with remove(), so an order lands in exactly one flush.
+    private final ConcurrentHashMap<Long, Delta> pending = new ConcurrentHashMap<>();
+
+    public void record(Long userId, double amount) {
+        // NaN or infinity would poison the user's total spent for good
+        if (!Double.isFinite(amount) || amount < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Order amount must be a non-negative number");
+        }
+        // Only a user's first order per flush window pays for the lookup
+        if (!pending.containsKey(userId) && !userExists(userId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+        pending.compute(userId, (id, delta) -> {
+            Delta d = delta == null ? new Delta() : delta;
+            d.orders++;
+            d.spent += amount;
+            return d;
+        });
+        if (pending.size() > maxPendingUsers) {
+            flush(); // backpressure: the caller pays for the flush
+        }
+    }
+
+    private boolean userExists(Long userId) {
+        return ShardContext.callOn(shardRouter.shardFor(userId),
+                () -> jdbcTemplate.queryForObject(USER_EXISTS_SQL, Integer.class, userId)) > 0;
+    }
+
+    @Scheduled(fixedDelayString = "${membership.orders.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Writes all pending deltas to the database.
+     *
+     * @return number of users updated
+     */
+    public synchronized int flush() {
+        int flushed = 0;
+        Map<Long, Delta> batch = new HashMap<>();
+        for (Long userId : pending.keySet()) {
+            Delta delta = pending.remove(userId);
+            if (delta == null) {
+                continue;
+            }
+            batch.put(userId, delta);
+            if (batch.size() >= flushBatchSize) {
+                flushed += write(batch);
+                batch = new HashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            flushed += write(batch);
+        }
+        return flushed;
+    }
+
+    private int write(Map<Long, Delta> batch) {
+        int written = 0;
+        for (Map.Entry<Integer, List<Long>> shard : shardRouter.groupByShard(batch.keySet()).entrySet()) {
+            written += ShardContext.callOn(shard.getKey(), () -> writeShard(shard.getValue(), batch));
+        }
+        return written;
+    }
+
+    private int writeShard(List<Long> userIds, Map<Long, Delta> batch) {
+        try {
+            int unmatched = transactionTemplate.execute(status -> {
+                int[][] counts = jdbcTemplate.batchUpdate(ADD_STATS_SQL, userIds, userIds.size(), (ps, userId) -> {
+                    Delta delta = batch.get(userId);
+                    ps.setLong(1, delta.orders);
+                    ps.setDouble(2, delta.spent);
+                    ps.setLong(3, userId);
+                });
+                List<Object[]> tierChanges = findTierChanges(userIds);
+                if (!tierChanges.isEmpty()) {
+                    jdbcTemplate.batchUpdate(SET_TIER_SQL, tierChanges);
+                }
+                return countUnmatched(userIds, batch, counts[0]);
+            });
+            return userIds.size() - unmatched;
+        } catch (RuntimeException e) {
+            // Put the deltas back so the next flush retries them
+            log.warn("Order stats flush of {} users failed, requeueing", userIds.size(), e);
+            for (Long userId : userIds) {
+                pending.merge(userId, batch.get(userId), Delta::plus);
+            }
+            return 0;
+        }
+    }
+
+    // Users deleted since their orders were recorded: nothing to add the orders to
+    private int countUnmatched(List<Long> userIds, Map<Long, Delta> batch, int[] counts) {
+        int unmatched = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                Delta delta = batch.get(userIds.get(i));
+                log.warn("Dropped {} orders of user {}, which no longer exists", delta.orders, userIds.get(i));
+                membershipMetrics.ordersDropped(delta.orders);
+                unmatched++;
+            }
+        }
+        return unmatched;
+    }
+
+    /**
+     * Re-reads the flushed users and lets the detector check them against their
+     * current tier; returns (tierId, userId) pairs for users that moved.
+     */
+    private List<Object[]> findTierChanges(Collection<Long> userIds) {
+        List<Object[]> changes = new ArrayList<>();
+        namedParameterJdbcTemplate.query(SELECT_STATS_SQL, Map.of("ids", userIds), rs -> {
+            long userId = rs.getLong("id");
+            long storedTierId = rs.getLong("current_tier_id");
+            Long currentTierId = rs.wasNull() ? null : storedTierId;
+            Long newTierId = tierCrossingDetector.evaluate(userId, currentTierId, rs.getInt("total_orders"),
+                    rs.getDouble("total_spent"), rs.getLong("cohort_mask"));
+            if (newTierId != null) {
+                changes.add(new Object[] { newTierId, userId });
+            }
+        });
+        return changes;
+    }
+
+    private static final class Delta {
+        long orders;
+        double spent;
+
+        Delta plus(Delta other) {
+            orders += other.orders;
+            spent += other.spent;
+            return this;
+        }
+    }
+}
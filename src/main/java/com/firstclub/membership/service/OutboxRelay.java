@@ -0,0 +1,184 @@
+package com.firstclub.membership.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.firstclub.membership.event.OutboxMessage;
+import com.firstclub.membership.event.OutboxPublisher;
+import com.firstclub.membership.model.SubscriptionEventType;
+import com.firstclub.membership.shard.ShardRouter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drains the outbox to the {@link OutboxPublisher}, oldest first, in batches.
+ * A batch is claimed with a conditional UPDATE (stamping this relay's token on
+ * rows nobody holds, or whose claim has gone stale), so relays on several nodes
+ * never publish the same rows at once; rows are deleted once published. When
+ * the publisher fails, the batch is released and the shard's run stops, so the
+ * same rows are retried first and id order holds across failures. Polling then
+ * backs off, doubling up to a cap, so a struggling downstream is not hammered
+ * while the backlog waits in the table.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private static final String CANDIDATES_SQL = "select id from outbox_event"
+            + " where claimed_at is null or claimed_at < ? order by id fetch first ? rows only";
+    private static final String CLAIM_SQL = "update outbox_event set claimed_by = :token, claimed_at = :now"
+            + " where id in (:ids) and (claimed_at is null or claimed_at < :staleBefore)";
+    private static final String CLAIMED_SQL = "select id, event_type, user_id, subscription_id, payload, created_at"
+            + " from outbox_event where claimed_by = ? order by id";
+    private static final String DELETE_SQL = "delete from outbox_event where claimed_by = ?";
+    private static final String RELEASE_SQL = "update outbox_event set claimed_by = null, claimed_at = null"
+            + " where claimed_by = ?";
+    private static final String BACKLOG_SQL = "select count(*), min(created_at) from outbox_event";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${membership.outbox.batch-size:200}")
+    private int batchSize;
+    @Value("${membership.outbox.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+    @Value("${membership.outbox.claim-timeout-ms:30000}")
+    private long claimTimeoutMs;
+    @Value("${membership.outbox.max-backoff-ms:30000}")
+    private long maxBackoffMs;
+
+    private final String relayId = UUID.randomUUID().toString();
+    private final AtomicLong claims = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Counter published;
+    private final Counter failures;
+
+    private volatile long failureBackoffMs;
+    private volatile long pausedUntil;
+
+    public OutboxRelay(MeterRegistry registry) {
+        Gauge.builder("membership.outbox.pending", pending, AtomicLong::get)
+                .description("Outbox events not yet published").register(registry);
+        Gauge.builder("membership.outbox.lag", lagMillis, v -> v.get() / 1000.0).baseUnit("seconds")
+                .description("Age of the oldest unpublished outbox event").register(registry);
+        this.published = Counter.builder("membership.outbox.published")
+                .description("Outbox events handed to the publisher").register(registry);
+        this.failures = Counter.builder("membership.outbox.publish.failures")
+                .description("Outbox batches the publisher rejected").register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${membership.outbox.poll-interval-ms:500}")
+    public void scheduledRelay() {
+        if (System.currentTimeMillis() < pausedUntil) {
+            return;
+        }
+        relay();
+    }
+
+    /**
+     * Publishes what is pending on every shard, up to the per-run budget.
+     *
+     * @return number of events published
+     */
+    public int relay() {
+        List<Integer> counts = shardRouter.onEachShard(shard -> relayShard());
+        int total = counts.stream().mapToInt(Integer::intValue).sum();
+        updateBacklog();
+        return total;
+    }
+
+    private int relayShard() {
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            Claim claim = claimBatch();
+            if (claim.messages().isEmpty()) {
+                break;
+            }
+            try {
+                outboxPublisher.publish(claim.messages());
+            } catch (RuntimeException e) {
+                // Hand the rows back and stop: the next run starts with this same batch,
+                // so nothing after it is published first
+                jdbcTemplate.update(RELEASE_SQL, claim.token());
+                failures.increment();
+                backOff();
+                log.warn("Outbox publish of {} events failed, pausing for {} ms", claim.messages().size(),
+                        failureBackoffMs, e);
+                return total;
+            }
+            jdbcTemplate.update(DELETE_SQL, claim.token());
+            published.increment(claim.messages().size());
+            failureBackoffMs = 0;
+            total += claim.messages().size();
+            if (claim.messages().size() < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private record Claim(String token, List<OutboxMessage> messages) {
+    }
+
+    private Claim claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp staleBefore = Timestamp.valueOf(now.minus(Duration.ofMillis(claimTimeoutMs)));
+        List<Long> ids = jdbcTemplate.queryForList(CANDIDATES_SQL, Long.class, staleBefore, batchSize);
+        if (ids.isEmpty()) {
+            return new Claim(null, List.of());
+        }
+        String token = relayId + ":" + claims.incrementAndGet();
+        namedParameterJdbcTemplate.update(CLAIM_SQL, Map.of("token", token, "now", Timestamp.valueOf(now),
+                "ids", ids, "staleBefore", staleBefore));
+        // Rows another relay claimed in between are simply not ours
+        List<OutboxMessage> messages = jdbcTemplate.query(CLAIMED_SQL, (rs, i) -> new OutboxMessage(
+                rs.getLong("id"), SubscriptionEventType.valueOf(rs.getString("event_type")),
+                rs.getLong("user_id"), rs.getLong("subscription_id"), rs.getString("payload"),
+                rs.getTimestamp("created_at").toLocalDateTime()), token);
+        return new Claim(token, messages);
+    }
+
+    private void backOff() {
+        long backoff = failureBackoffMs == 0 ? 1000 : Math.min(failureBackoffMs * 2, maxBackoffMs);
+        failureBackoffMs = backoff;
+        pausedUntil = System.currentTimeMillis() + backoff;
+    }
+
+    private void updateBacklog() {
+        long count = 0;
+        LocalDateTime oldest = null;
+        List<Object[]> perShard = shardRouter.onEachShard(shard -> jdbcTemplate.queryForObject(BACKLOG_SQL,
+                (rs, i) -> new Object[] { rs.getLong(1), rs.getTimestamp(2) }));
+        for (Object[] row : perShard) {
+            count += (Long) row[0];
+            if (row[1] != null) {
+                LocalDateTime created = ((Timestamp) row[1]).toLocalDateTime();
+                oldest = oldest == null || created.isBefore(oldest) ? created : oldest;
+            }
+        }
+        pending.set(count);
+        lagMillis.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis()));
+    }
+}
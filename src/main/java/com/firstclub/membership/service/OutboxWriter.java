@@ -0,0 +1,65 @@
+package com.firstclub.membership.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.firstclub.membership.dto.SubscriptionView;
+import com.firstclub.membership.model.OutboxEvent;
+import com.firstclub.membership.model.SubscriptionEventType;
+import com.firstclub.membership.repository.OutboxEventRepository;
+
+/**
+ * Records subscription changes in the outbox. Only valid inside the transaction
+ * that makes the change, so the event exists exactly when the change does.
+ * Every event is also appended to the subscription history, and the user is
+ * logged so other nodes drop their cached subscription.
+ */
+@Service
+public class OutboxWriter {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private SubscriptionHistoryWriter subscriptionHistoryWriter;
+    @Autowired
+    private SubscriptionInvalidationLog subscriptionInvalidationLog;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(SubscriptionEventType type, SubscriptionView view) {
+        outboxEventRepository.save(toEvent(type, view, LocalDateTime.now()));
+        subscriptionHistoryWriter.append(type, view);
+        subscriptionInvalidationLog.record(List.of(view.userId()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(SubscriptionEventType type, Collection<SubscriptionView> views) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = new ArrayList<>(views.size());
+        for (SubscriptionView view : views) {
+            events.add(toEvent(type, view, now));
+        }
+        outboxEventRepository.saveAll(events);
+        subscriptionHistoryWriter.appendAll(type, views);
+        subscriptionInvalidationLog.record(views.stream().map(SubscriptionView::userId).toList());
+    }
+
+    private OutboxEvent toEvent(SubscriptionEventType type, SubscriptionView view, LocalDateTime now) {
+        try {
+            return new OutboxEvent(null, type, view.userId(), view.subscriptionId(),
+                    objectMapper.writeValueAsString(view), now, null, null);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize subscription event", e);
+        }
+    }
+}
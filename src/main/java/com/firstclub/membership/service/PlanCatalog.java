@@ -0,0 +1,75 @@
+package com.firstclub.membership.service;
+
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.repository.PlanRepository;
+
+/**
+ * Holds the current {@link PlanSnapshot}. Rebuilt only when a Plan changes or
+ * the underlying {@link TierCatalog} moves to a new version.
+ */
+@Component
+public class PlanCatalog {
+
+    @Autowired
+    private PlanRepository planRepository;
+    @Autowired
+    private TierCatalog tierCatalog;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile PlanSnapshot current;
+    private volatile boolean stale = true;
+
+    public PlanSnapshot snapshot() {
+        TierSnapshot tiers = tierCatalog.snapshot();
+        PlanSnapshot snapshot = current;
+        if (snapshot == null || stale || snapshot.getTiers() != tiers) {
+            return refresh(tiers);
+        }
+        return snapshot;
+    }
+
+    public void invalidateAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Serves {@code plans} (e.g. from the warm-start snapshot) until the next invalidation.
+     */
+    public synchronized void install(TierSnapshot tiers, Collection<Plan> plans) {
+        current = PlanSnapshot.build(tiers, plans, objectMapper);
+        stale = false;
+    }
+
+    private synchronized PlanSnapshot refresh(TierSnapshot tiers) {
+        PlanSnapshot snapshot = current;
+        if (snapshot != null && !stale && snapshot.getTiers() == tiers) {
+            return snapshot;
+        }
+        stale = false;
+        snapshot = PlanSnapshot.build(tiers, planRepository.findAll(), objectMapper);
+        current = snapshot;
+        return snapshot;
+    }
+}
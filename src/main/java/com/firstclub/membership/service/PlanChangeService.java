@@ -0,0 +1,145 @@
+package com.firstclub.membership.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.firstclub.membership.dto.PlanChangeQuote;
+import com.firstclub.membership.dto.SubscriptionView;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.PlanChange;
+import com.firstclub.membership.model.PlanChangeKind;
+import com.firstclub.membership.model.Subscription;
+import com.firstclub.membership.model.SubscriptionEventType;
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.firstclub.membership.repository.PlanChangeRepository;
+
+/**
+ * Prices and applies plan changes.
+ * <p>
+ * Pricing only reads the plan snapshot and a {@link SubscriptionView}, so a
+ * quote never touches the database. Moving to a higher tier or to another plan
+ * of the same tier happens immediately and the unused days of the current period
+ * are credited at the current plan's daily rate; credit beyond the new plan's
+ * price is not lost but extends the new period at that plan's daily rate.
+ * Moving to a lower tier is scheduled: the subscription keeps its plan until the
+ * end date and the renewal job switches it over then. Scheduling does not touch
+ * auto-renew; with auto-renew off the subscription simply ends, and the pending
+ * plan is used if auto-renew is switched on before then.
+ */
+@Service
+public class PlanChangeService {
+
+    private static final int MONEY_SCALE = 2;
+
+    @Autowired
+    private PlanChangeRepository planChangeRepository;
+
+    /**
+     * Prices moving {@code current} (null if the user never subscribed) to {@code target} as of {@code today}.
+     */
+    public PlanChangeQuote quote(PlanSnapshot catalog, SubscriptionView current, Plan target, LocalDate today) {
+        BigDecimal price = money(target.getPrice());
+        if (current == null || current.status() != SubscriptionStatus.ACTIVE || !current.endDate().isAfter(today)) {
+            return new PlanChangeQuote(null, target.getId(), PlanChangeKind.NEW, 0, zero(), price, price, today,
+                    MembershipService.calculateEndDate(today, target.getDuration()));
+        }
+
+        long remainingDays = ChronoUnit.DAYS.between(today, current.endDate());
+        if (current.planId().equals(target.getId())) {
+            return new PlanChangeQuote(current.planId(), target.getId(), PlanChangeKind.NONE, remainingDays, zero(),
+                    zero(), zero(), today, current.endDate());
+        }
+
+        TierSnapshot tiers = catalog.getTiers();
+        int from = tiers.indexOf(current.tierId());
+        int to = tiers.indexOf(target.getTier().getId());
+        if (to < from) {
+            // Paid at the next renewal, nothing is due now
+            return new PlanChangeQuote(current.planId(), target.getId(), PlanChangeKind.DOWNGRADE, remainingDays,
+                    zero(), price, zero(), current.endDate(),
+                    MembershipService.calculateEndDate(current.endDate(), target.getDuration()));
+        }
+
+        BigDecimal credit = credit(catalog, current.planId(), remainingDays);
+        BigDecimal amountDue = price.subtract(credit).max(zero());
+        LocalDate newEndDate = MembershipService.calculateEndDate(today, target.getDuration())
+                .plusDays(surplusDays(catalog, target, credit.subtract(price)));
+        return new PlanChangeQuote(current.planId(), target.getId(),
+                to > from ? PlanChangeKind.UPGRADE : PlanChangeKind.SWITCH, remainingDays, credit, price, amountDue,
+                today, newEndDate);
+    }
+
+    // Whole days of the target plan the credit left over after paying for it buys
+    private static long surplusDays(PlanSnapshot catalog, Plan target, BigDecimal surplus) {
+        BigDecimal dailyRate = catalog.dailyRate(target.getId());
+        if (surplus.signum() <= 0 || dailyRate == null || dailyRate.signum() <= 0) {
+            return 0;
+        }
+        return surplus.divide(dailyRate, 0, RoundingMode.DOWN).longValue();
+    }
+
+    // Unused days at the daily rate, never more than was paid for the period
+    private static BigDecimal credit(PlanSnapshot catalog, Long planId, long remainingDays) {
+        BigDecimal dailyRate = catalog.dailyRate(planId);
+        Plan plan = catalog.plan(planId);
+        if (dailyRate == null || plan == null || plan.getPrice() == null) {
+            return zero();
+        }
+        return dailyRate.multiply(BigDecimal.valueOf(remainingDays)).min(plan.getPrice())
+                .setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal money(BigDecimal amount) {
+        return amount == null ? zero() : amount.setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal zero() {
+        return BigDecimal.ZERO.setScale(MONEY_SCALE);
+    }
+
+    /**
+     * Applies a quote to the (managed) subscription. {@code plan} must be a managed
+     * reference to the quote's target plan. Returns the event to publish, or null
+     * when nothing changed.
+     */
+    public SubscriptionEventType apply(Subscription subscription, PlanChangeQuote quote, Plan plan) {
+        switch (quote.kind()) {
+            case NONE:
+                // Re-choosing the current plan cancels a scheduled downgrade
+                if (subscription.getPendingPlanId() == null) {
+                    return null;
+                }
+                subscription.setPendingPlanId(null);
+                return SubscriptionEventType.PLAN_CHANGE_SCHEDULED;
+            case DOWNGRADE:
+                subscription.setPendingPlanId(plan.getId());
+                return SubscriptionEventType.PLAN_CHANGE_SCHEDULED;
+            default:
+                subscription.setPlan(plan);
+                subscription.setStartDate(quote.effectiveDate());
+                subscription.setEndDate(quote.newEndDate());
+                subscription.setStatus(SubscriptionStatus.ACTIVE);
+                subscription.setPendingPlanId(null);
+                return quote.kind() == PlanChangeKind.NEW ? SubscriptionEventType.SUBSCRIBED
+                        : SubscriptionEventType.PLAN_CHANGED;
+        }
+    }
+
+    /**
+     * Keeps the priced change for billing; must run in the transaction that applied it.
+     */
+    public void record(Subscription subscription, PlanChangeQuote quote) {
+        if (quote.kind() == PlanChangeKind.NONE) {
+            return;
+        }
+        planChangeRepository.save(new PlanChange(null, subscription.getId(), subscription.getUser().getId(),
+                quote.fromPlanId(), quote.toPlanId(), quote.kind(), quote.credit(), quote.amountDue(),
+                quote.effectiveDate(), LocalDateTime.now()));
+    }
+}
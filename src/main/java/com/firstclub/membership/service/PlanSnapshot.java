@@ -0,0 +1,113 @@
+package com.firstclub.membership.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.firstclub.membership.dto.PlanView;
+import com.firstclub.membership.model.Plan;
+
+/**
+ * Immutable plan catalog built against one {@link TierSnapshot}. For every tier
+ * rank it keeps the plans a user of that rank may buy (the tier itself and any
+ * lower tier) together with the already serialized JSON response (as {@link PlanView}s).
+ * Per-plan daily rates are precomputed for proration.
+ */
+public final class PlanSnapshot {
+
+    private final TierSnapshot tiers;
+    private final List<List<Plan>> plansByRank;
+    private final byte[][] jsonByRank;
+    private final Map<Long, Plan> plansById;
+    private final Map<Long, BigDecimal> dailyRateById;
+
+    private PlanSnapshot(TierSnapshot tiers, List<List<Plan>> plansByRank, byte[][] jsonByRank,
+            Map<Long, Plan> plansById, Map<Long, BigDecimal> dailyRateById) {
+        this.tiers = tiers;
+        this.plansByRank = plansByRank;
+        this.jsonByRank = jsonByRank;
+        this.plansById = plansById;
+        this.dailyRateById = dailyRateById;
+    }
+
+    public static PlanSnapshot build(TierSnapshot tiers, Collection<Plan> plans, ObjectMapper objectMapper) {
+        List<List<Plan>> plansByRank = new ArrayList<>(tiers.size());
+        byte[][] jsonByRank = new byte[tiers.size()][];
+        for (int rank = 0; rank < tiers.size(); rank++) {
+            double ceiling = tiers.tierAt(rank).getMinTotalSpent();
+            List<Plan> visible = new ArrayList<>();
+            for (Plan plan : plans) {
+                if (plan.getTier().getMinTotalSpent() <= ceiling) {
+                    visible.add(plan);
+                }
+            }
+            plansByRank.add(Collections.unmodifiableList(visible));
+            jsonByRank[rank] = toJson(objectMapper, visible.stream().map(PlanView::of).toList());
+        }
+
+        Map<Long, Plan> byId = new HashMap<>();
+        Map<Long, BigDecimal> dailyRates = new HashMap<>();
+        for (Plan plan : plans) {
+            byId.put(plan.getId(), plan);
+            dailyRates.put(plan.getId(), dailyRate(plan));
+        }
+        return new PlanSnapshot(tiers, Collections.unmodifiableList(plansByRank), jsonByRank,
+                Collections.unmodifiableMap(byId), Collections.unmodifiableMap(dailyRates));
+    }
+
+    private static BigDecimal dailyRate(Plan plan) {
+        if (plan.getPrice() == null || plan.getDuration() == null) {
+            return BigDecimal.ZERO;
+        }
+        return plan.getPrice().divide(BigDecimal.valueOf(plan.getDuration().getNominalDays()), 6,
+                RoundingMode.HALF_UP);
+    }
+
+    private static byte[] toJson(ObjectMapper objectMapper, Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize plan catalog", e);
+        }
+    }
+
+    /**
+     * The tier snapshot this catalog was built from; ranks below refer to it.
+     */
+    public TierSnapshot getTiers() {
+        return tiers;
+    }
+
+    public List<Plan> plansFor(int tierRank) {
+        return plansByRank.get(tierRank);
+    }
+
+    /**
+     * Pre-serialized JSON for {@link #plansFor(int)}. Shared, do not modify.
+     */
+    public byte[] plansJsonFor(int tierRank) {
+        return jsonByRank[tierRank];
+    }
+
+    public Collection<Plan> plans() {
+        return plansById.values();
+    }
+
+    public Plan plan(Long planId) {
+        return plansById.get(planId);
+    }
+
+    /**
+     * Price of one day of the plan (price / nominal period days, 6 decimals), or null if unknown.
+     */
+    public BigDecimal dailyRate(Long planId) {
+        return dailyRateById.get(planId);
+    }
+}
@@ -0,0 +1,413 @@
+package com.firstclub.membership.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.firstclub.membership.dto.SubscriptionView;
+import com.firstclub.membership.model.MembershipDuration;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.Subscription;
+import com.firstclub.membership.model.SubscriptionEventType;
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.PlanRepository;
+import com.firstclub.membership.repository.SubscriptionRepository;
+import com.firstclub.membership.shard.ShardContext;
+import com.firstclub.membership.shard.ShardRouter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Renews auto-renewing subscriptions when they reach their end date.
+ * <p>
+ * Due subscriptions are queued in a two level timing wheel. The outer level is
+ * the day: at day change the wheel is emptied and refilled from the
+ * (auto_renew, status, end_date, id) index with keyset pages, never holding more
+ * than {@code membership.renewal.max-queued} ids. The inner level splits the day
+ * into {@code slots-per-day} slots and each id lands in a slot picked by hashing
+ * it, so a month-end spike is spread over the whole day instead of hitting at
+ * midnight. Every tick drains the slots that are due in batches, runs the
+ * batches in parallel (each in its own short transaction, on its shard) and
+ * stops after {@code max-batches-per-tick}.
+ * <p>
+ * Subscriptions can become due during the day (auto-renew switched on, a plan
+ * change onto today's end date), so every tick continues the keyset scan from
+ * its cursor, and once per slot the wheel is emptied and the scan restarts
+ * from the beginning to find rows that became due behind the cursor. A renewed
+ * subscription is no longer due, so only the ids queued since the last restart
+ * are remembered to keep them from being queued twice; a renewal that failed
+ * is retried after the next restart.
+ * <p>
+ * A renewal first switches to a plan scheduled by a downgrade, then re-checks
+ * eligibility against the user's current tier and moves the subscription to a
+ * plan of that tier when the user no longer qualifies for the one they had.
+ */
+@Slf4j
+@Component
+public class RenewalJob {
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+    @Autowired
+    private PlanRepository planRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private PlanCatalog planCatalog;
+    @Autowired
+    private SubscriptionCache subscriptionCache;
+    @Autowired
+    private OutboxWriter outboxWriter;
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${membership.renewal.slots-per-day:24}")
+    private int slotsPerDay;
+    @Value("${membership.renewal.batch-size:200}")
+    private int batchSize;
+    @Value("${membership.renewal.max-batches-per-tick:100}")
+    private int maxBatchesPerTick;
+    @Value("${membership.renewal.max-queued:200000}")
+    private int maxQueued;
+    @Value("${membership.renewal.load-page-size:5000}")
+    private int loadPageSize;
+
+    private final ExecutorService workers;
+    private final Counter renewed;
+    private final Counter downgraded;
+    private final Counter failed;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    // Wheel state; only touched inside the synchronized tick
+    private LocalDate wheelDay;
+    private LongQueue[][] slots; // [shard][slot]
+    private LocalDate[] cursorDate; // last loaded (end_date, id) per shard
+    private long[] cursorId;
+    private boolean[] exhausted;
+    private LongSet seen; // ids queued since the last rescan
+    private int rescannedSlot;
+
+    public record Result(int renewed, int downgraded, int failed) {
+
+        static final Result NONE = new Result(0, 0, 0);
+
+        Result plus(Result other) {
+            return new Result(renewed + other.renewed, downgraded + other.downgraded, failed + other.failed);
+        }
+    }
+
+    public RenewalJob(MeterRegistry registry, @Value("${membership.renewal.parallelism:4}") int parallelism) {
+        this.workers = Executors.newFixedThreadPool(parallelism);
+        this.renewed = Counter.builder("membership.renewals").tag("result", "renewed")
+                .description("Subscriptions renewed on their current plan").register(registry);
+        this.downgraded = Counter.builder("membership.renewals").tag("result", "downgraded")
+                .description("Subscriptions renewed on a lower tier the user still qualifies for")
+                .register(registry);
+        this.failed = Counter.builder("membership.renewals").tag("result", "failed")
+                .description("Renewals that failed and are retried the next day").register(registry);
+        Gauge.builder("membership.renewal.queued", queued, AtomicInteger::get)
+                .description("Renewals due today and waiting in the wheel").register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${membership.renewal.tick-ms:60000}")
+    public void scheduledTick() {
+        Result result = tick(LocalDateTime.now());
+        if (result.renewed() > 0 || result.failed() > 0) {
+            log.info("Renewed {} subscriptions ({} downgraded), {} failed", result.renewed(), result.downgraded(),
+                    result.failed());
+        }
+    }
+
+    /**
+     * Processes the renewals due at {@code now}, within the per-tick budget.
+     */
+    public synchronized Result tick(LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        int dueSlot = (int) ((long) now.toLocalTime().toSecondOfDay() * slotsPerDay / LocalTime.MAX.toSecondOfDay());
+        dueSlot = Math.min(dueSlot, slotsPerDay - 1);
+        if (!today.equals(wheelDay)) {
+            resetWheel(today);
+        }
+        if (dueSlot != rescannedSlot) {
+            rescan();
+            rescannedSlot = dueSlot;
+        }
+        // New rows past the cursor are one cheap index probe away
+        Arrays.fill(exhausted, false);
+        refill(today);
+
+        List<CompletableFuture<Result>> running = new ArrayList<>();
+        for (int shard = 0; shard < slots.length && running.size() < maxBatchesPerTick; shard++) {
+            for (int slot = 0; slot <= dueSlot && running.size() < maxBatchesPerTick; slot++) {
+                LongQueue queue = slots[shard][slot];
+                while (!queue.isEmpty() && running.size() < maxBatchesPerTick) {
+                    long[] ids = queue.poll(batchSize);
+                    queued.addAndGet(-ids.length);
+                    int s = shard;
+                    running.add(CompletableFuture.supplyAsync(
+                            () -> ShardContext.callOn(s, () -> renewBatch(ids, today)), workers));
+                }
+            }
+        }
+        Result total = Result.NONE;
+        for (CompletableFuture<Result> batch : running) {
+            total = total.plus(batch.join());
+        }
+        renewed.increment(total.renewed() - total.downgraded());
+        downgraded.increment(total.downgraded());
+        failed.increment(total.failed());
+        return total;
+    }
+
+    private void resetWheel(LocalDate today) {
+        int shards = shardRouter.getShardCount();
+        slots = new LongQueue[shards][slotsPerDay];
+        for (LongQueue[] shardSlots : slots) {
+            for (int i = 0; i < slotsPerDay; i++) {
+                shardSlots[i] = new LongQueue();
+            }
+        }
+        cursorDate = new LocalDate[shards];
+        cursorId = new long[shards];
+        exhausted = new boolean[shards];
+        rescannedSlot = -1;
+        wheelDay = today;
+    }
+
+    // Reloads whatever is still due; the set of queued ids only ever covers one slot
+    private void rescan() {
+        for (LongQueue[] shardSlots : slots) {
+            for (LongQueue queue : shardSlots) {
+                queue.clear();
+            }
+        }
+        Arrays.fill(cursorDate, LocalDate.EPOCH);
+        Arrays.fill(cursorId, 0L);
+        seen = new LongSet();
+        queued.set(0);
+    }
+
+    private void refill(LocalDate today) {
+        for (int shard = 0; shard < slots.length; shard++) {
+            while (!exhausted[shard] && queued.get() < maxQueued) {
+                int limit = Math.min(loadPageSize, maxQueued - queued.get());
+                LocalDate afterDate = cursorDate[shard];
+                long afterId = cursorId[shard];
+                List<Object[]> page = ShardContext.callOn(shard, () -> subscriptionRepository.findRenewalsDue(
+                        SubscriptionStatus.ACTIVE, today, afterDate, afterId, PageRequest.of(0, limit)));
+                for (Object[] row : page) {
+                    long id = (Long) row[0];
+                    LocalDate endDate = (LocalDate) row[1];
+                    cursorDate[shard] = endDate;
+                    cursorId[shard] = id;
+                    if (!seen.add(id)) {
+                        continue;
+                    }
+                    // Overdue ones go first, today's are spread over the day
+                    int slot = endDate.isBefore(today) ? 0 : slotOf(id);
+                    slots[shard][slot].add(id);
+                    queued.incrementAndGet();
+                }
+                if (page.size() < limit) {
+                    exhausted[shard] = true;
+                }
+            }
+        }
+    }
+
+    private int slotOf(long id) {
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(mixed >>> 32, (long) slotsPerDay);
+    }
+
+    private Result renewBatch(long[] ids, LocalDate today) {
+        List<Long> idList = Arrays.stream(ids).boxed().toList();
+        try {
+            return transactionTemplate.execute(status -> renew(idList, today));
+        } catch (RuntimeException e) {
+            // One conflicting row must not fail the whole batch; redo one by one
+            log.debug("Renewal batch failed, retrying individually: {}", e.getMessage());
+            Result total = Result.NONE;
+            for (Long id : idList) {
+                try {
+                    total = total.plus(transactionTemplate.execute(status -> renew(List.of(id), today)));
+                } catch (RuntimeException single) {
+                    log.warn("Renewal of subscription {} failed: {}", id, single.getMessage());
+                    total = total.plus(new Result(0, 0, 1));
+                }
+            }
+            return total;
+        }
+    }
+
+    private Result renew(List<Long> ids, LocalDate today) {
+        PlanSnapshot catalog = planCatalog.snapshot();
+        TierSnapshot tiers = catalog.getTiers();
+        int renewedCount = 0;
+        int downgradedCount = 0;
+        int failedCount = 0;
+        for (Subscription sub : subscriptionRepository.findRenewable(ids, SubscriptionStatus.ACTIVE, today)) {
+            User user = sub.getUser();
+            int eligible = tiers.currentIndex(user.getCurrentTierId(), user.getTotalOrders(), user.getTotalSpent(),
+                    user.getCohortMask());
+            Plan cataloged = catalog.plan(sub.getPlan().getId());
+            Plan plan = cataloged != null ? cataloged : sub.getPlan();
+            // A downgrade scheduled by a plan change takes effect with this period
+            if (sub.getPendingPlanId() != null) {
+                Plan pending = catalog.plan(sub.getPendingPlanId());
+                if (pending != null) {
+                    sub.setPlan(planRepository.getReferenceById(pending.getId()));
+                    plan = pending;
+                }
+                sub.setPendingPlanId(null);
+            }
+            if (plan.getTier().getMinTotalSpent() > tiers.tierAt(eligible).getMinTotalSpent()) {
+                Plan lower = downgradeTarget(catalog, tiers, eligible, plan.getDuration());
+                if (lower == null) {
+                    failedCount++;
+                    continue;
+                }
+                sub.setPlan(planRepository.getReferenceById(lower.getId()));
+                plan = lower;
+                downgradedCount++;
+            }
+
+            // The new period follows on from the old one, unless it lapsed for longer than a period
+            LocalDate start = sub.getEndDate();
+            LocalDate end = MembershipService.calculateEndDate(start, plan.getDuration());
+            if (end.isBefore(today)) {
+                start = today;
+                end = MembershipService.calculateEndDate(today, plan.getDuration());
+            }
+            sub.setStartDate(start);
+            sub.setEndDate(end);
+            SubscriptionView view = SubscriptionView.of(sub, plan);
+            outboxWriter.append(SubscriptionEventType.RENEWED, view);
+            subscriptionCache.writeThroughAfterCommit(user.getId(), () -> view);
+            renewedCount++;
+        }
+        return new Result(renewedCount, downgradedCount, failedCount);
+    }
+
+    // Plan of the user's eligible tier, same duration if there is one
+    private static Plan downgradeTarget(PlanSnapshot catalog, TierSnapshot tiers, int eligible,
+            MembershipDuration duration) {
+        Long tierId = tiers.tierAt(eligible).getId();
+        Plan fallback = null;
+        for (Plan candidate : catalog.plansFor(eligible)) {
+            if (candidate.getTier().getId().equals(tierId)) {
+                if (candidate.getDuration() == duration) {
+                    return candidate;
+                }
+                if (fallback == null) {
+                    fallback = candidate;
+                }
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * Growable open-addressing set of positive primitive ids.
+     */
+    private static final class LongSet {
+        private long[] table = new long[1024];
+        private int size;
+
+        // false if the id was already in the set
+        boolean add(long id) {
+            if ((size + 1) * 2 > table.length) {
+                grow();
+            }
+            int mask = table.length - 1;
+            int i = (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            while (table[i] != 0) {
+                if (table[i] == id) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = id;
+            size++;
+            return true;
+        }
+
+        private void grow() {
+            long[] old = table;
+            table = new long[old.length * 2];
+            size = 0;
+            for (long id : old) {
+                if (id != 0) {
+                    add(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Growable FIFO of primitive ids.
+     */
+    private static final class LongQueue {
+        private long[] items = new long[16];
+        private int head;
+        private int tail;
+
+        boolean isEmpty() {
+            return head == tail;
+        }
+
+        void clear() {
+            head = 0;
+            tail = 0;
+        }
+
+        void add(long id) {
+            if (tail == items.length) {
+                if (head > 0) {
+                    System.arraycopy(items, head, items, 0, tail - head);
+                    tail -= head;
+                    head = 0;
+                }
+                if (tail == items.length) {
+                    items = Arrays.copyOf(items, items.length * 2);
+                }
+            }
+            items[tail++] = id;
+        }
+
+        long[] poll(int max) {
+            int n = Math.min(max, tail - head);
+            long[] out = Arrays.copyOfRange(items, head, head + n);
+            head += n;
+            if (head == tail) {
+                head = 0;
+                tail = 0;
+            }
+            return out;
+        }
+    }
+}
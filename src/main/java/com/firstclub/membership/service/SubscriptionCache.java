@@ -0,0 +1,142 @@
+package com.firstclub.membership.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.firstclub.membership.dto.SubscriptionView;
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded read-through cache of each user's current subscription, keyed by userId.
+ * Writers go through {@link #writeThroughAfterCommit}: while their transaction is
+ * committing, readers bypass the cache, and once it has committed the new view is
+ * stored, so a committed cancel is never followed by a cached ACTIVE view.
+ */
+@Component
+public class SubscriptionCache {
+
+    // Optional.empty() caches "user has no subscription"
+    private final Cache<Long, Optional<SubscriptionView>> cache;
+    private final ConcurrentHashMap<Long, AtomicInteger> writesInFlight = new ConcurrentHashMap<>();
+
+    public SubscriptionCache(MeterRegistry meterRegistry,
+            @Value("${membership.subscription-cache.max-size:100000}") long maxSize,
+            @Value("${membership.subscription-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "subscriptions");
+    }
+
+    public Optional<SubscriptionView> get(Long userId, Function<Long, Optional<SubscriptionView>> loader) {
+        if (writesInFlight.containsKey(userId)) {
+            return loader.apply(userId);
+        }
+        Optional<SubscriptionView> view = cache.get(userId, loader);
+        if (view.isPresent() && isPastEnd(view.get())) {
+            // The expiry sweep may have moved it to EXPIRED since it was cached
+            cache.invalidate(userId);
+            view = cache.get(userId, loader);
+        }
+        if (writesInFlight.containsKey(userId)) {
+            return loader.apply(userId); // a write started while we were reading
+        }
+        return view;
+    }
+
+    /**
+     * Registers a write of the user's subscription in the current transaction.
+     * The view is taken after commit, once the entity carries its final version.
+     */
+    public void writeThroughAfterCommit(Long userId, Supplier<SubscriptionView> committedView) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.put(userId, Optional.ofNullable(committedView.get()));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean marked;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                writesInFlight.computeIfAbsent(userId, id -> new AtomicInteger()).incrementAndGet();
+                marked = true;
+                cache.invalidate(userId);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    cache.put(userId, Optional.ofNullable(committedView.get()));
+                } else {
+                    cache.invalidate(userId);
+                }
+                if (marked) {
+                    writesInFlight.computeIfPresent(userId,
+                            (id, count) -> count.decrementAndGet() == 0 ? null : count);
+                }
+            }
+        });
+    }
+
+    /**
+     * Up to {@code limit} cached subscriptions (users without one are left out).
+     */
+    public Map<Long, SubscriptionView> cachedViews(int limit) {
+        Map<Long, SubscriptionView> views = new HashMap<>();
+        for (Map.Entry<Long, Optional<SubscriptionView>> entry : cache.asMap().entrySet()) {
+            if (views.size() >= limit) {
+                break;
+            }
+            entry.getValue().ifPresent(view -> views.put(entry.getKey(), view));
+        }
+        return views;
+    }
+
+    /**
+     * Seeds the cache, e.g. from the warm-start snapshot. Entries already cached
+     * or being written are left alone, so a preload never replaces newer data.
+     */
+    public void preload(Map<Long, SubscriptionView> views) {
+        views.forEach((userId, view) -> {
+            if (!writesInFlight.containsKey(userId) && !isPastEnd(view)) {
+                cache.asMap().putIfAbsent(userId, Optional.of(view));
+            }
+        });
+    }
+
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+    }
+
+    /**
+     * Drops every cached subscription matching {@code affected}, e.g. all of a changed plan.
+     */
+    public void invalidateIf(Predicate<SubscriptionView> affected) {
+        cache.asMap().values().removeIf(view -> view.isPresent() && affected.test(view.get()));
+    }
+
+    private static boolean isPastEnd(SubscriptionView view) {
+        return view.status() == SubscriptionStatus.ACTIVE && view.endDate() != null
+                && view.endDate().isBefore(LocalDate.now());
+    }
+}
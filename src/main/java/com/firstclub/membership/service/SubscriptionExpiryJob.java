@@ -0,0 +1,91 @@
+package com.firstclub.membership.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.firstclub.membership.model.SubscriptionEventType;
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.firstclub.membership.repository.SubscriptionRepository;
+import com.firstclub.membership.shard.ShardRouter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves ACTIVE subscriptions whose end date has passed to EXPIRED.
+ * Works in chunks of ids, each chunk its own short transaction with one bulk
+ * UPDATE, and stops after a fixed number of chunks so a run has a bounded cost.
+ * Shards are swept in parallel, each with its own budget. Auto-renewing
+ * subscriptions get {@code membership.renewal.grace-days} for the renewal queue
+ * to reach them before they expire.
+ */
+@Slf4j
+@Component
+public class SubscriptionExpiryJob {
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ShardRouter shardRouter;
+    @Autowired
+    private OutboxWriter outboxWriter;
+
+    @Value("${membership.expiry.batch-size:1000}")
+    private int batchSize;
+    @Value("${membership.expiry.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+    @Value("${membership.renewal.grace-days:3}")
+    private int renewalGraceDays;
+
+    @Scheduled(fixedDelayString = "${membership.expiry.interval-ms:60000}")
+    public void run() {
+        int expired = expireDue(LocalDate.now());
+        if (expired > 0) {
+            log.info("Expired {} subscriptions", expired);
+        }
+    }
+
+    /**
+     * Expires subscriptions that ended before {@code today}, on every shard.
+     *
+     * @return number of subscriptions expired in this run
+     */
+    public int expireDue(LocalDate today) {
+        return shardRouter.onEachShard(shard -> expireDueOnShard(today)).stream()
+                .mapToInt(Integer::intValue).sum();
+    }
+
+    private int expireDueOnShard(LocalDate today) {
+        int total = 0;
+        LocalDate renewBefore = today.minusDays(renewalGraceDays);
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Long> ids = subscriptionRepository.findExpirableIds(
+                    SubscriptionStatus.ACTIVE, today, renewBefore, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer updated = transactionTemplate.execute(status -> {
+                int count = subscriptionRepository.transitionStatus(
+                        ids, SubscriptionStatus.ACTIVE, SubscriptionStatus.EXPIRED, today, renewBefore);
+                if (count > 0) {
+                    outboxWriter.appendAll(SubscriptionEventType.EXPIRED,
+                            subscriptionRepository.findViewsByIdInAndStatus(ids, SubscriptionStatus.EXPIRED));
+                }
+                return count;
+            });
+            total += updated == null ? 0 : updated;
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,55 @@
+package com.firstclub.membership.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.annotation.Timed;
+
+import com.firstclub.membership.dto.SubscriptionHistoryEntry;
+import com.firstclub.membership.dto.SubscriptionHistoryPage;
+import com.firstclub.membership.repository.SubscriptionHistoryRepository;
+import com.firstclub.membership.shard.RoutedByUser;
+
+/**
+ * Reads a user's subscription history page by page. Pages are keyset based
+ * (id below the cursor), so deep pages cost the same as the first one.
+ */
+@Service
+public class SubscriptionHistoryService {
+
+    // Open date bounds; kept within the range every database accepts
+    private static final LocalDate EARLIEST = LocalDate.of(1970, 1, 1);
+    private static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
+
+    @Autowired
+    private SubscriptionHistoryRepository subscriptionHistoryRepository;
+
+    @Value("${membership.history.max-page-size:200}")
+    private int maxPageSize;
+
+    /**
+     * Entries recorded between {@code from} and {@code to} (inclusive, both optional),
+     * newest first, starting below the {@code before} cursor (null = newest).
+     */
+    @Timed(value = "membership.service", extraTags = { "operation", "history" }, histogram = true)
+    @RoutedByUser
+    public SubscriptionHistoryPage history(Long userId, Long before, LocalDate from, LocalDate to, int limit) {
+        int size = Math.max(1, Math.min(limit, maxPageSize));
+        // One extra row tells whether there is a next page
+        List<SubscriptionHistoryEntry> rows = subscriptionHistoryRepository.findPage(userId,
+                before == null ? Long.MAX_VALUE : before,
+                from == null ? EARLIEST : from,
+                to == null ? LATEST : to,
+                PageRequest.of(0, size + 1));
+        if (rows.size() <= size) {
+            return new SubscriptionHistoryPage(rows, null);
+        }
+        List<SubscriptionHistoryEntry> page = rows.subList(0, size);
+        return new SubscriptionHistoryPage(List.copyOf(page), page.get(size - 1).id());
+    }
+}
@@ -0,0 +1,94 @@
+package com.firstclub.membership.service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.firstclub.membership.dto.SubscriptionView;
+import com.firstclub.membership.model.SubscriptionEventType;
+
+/**
+ * Appends subscription changes to subscription_history. Appends made during a
+ * transaction are buffered and written just before it commits as one JDBC
+ * batch, so a request that touches many subscriptions costs one round trip and
+ * a rolled back change leaves no history behind.
+ */
+@Service
+public class SubscriptionHistoryWriter {
+
+    // H2: one round trip for many sequence values
+    private static final String NEXT_ID_BLOCKS_SQL =
+            "select next value for subscription_history_seq from system_range(1, ?)";
+    // allocationSize of subscription_history_seq
+    private static final int ID_BLOCK = 50;
+    private static final String INSERT_SQL = "insert into subscription_history (id, recorded_on, recorded_at,"
+            + " user_id, subscription_id, event_type, plan_id, tier_id, status, start_date, end_date)"
+            + " values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void append(SubscriptionEventType type, SubscriptionView view) {
+        buffer().add(type, view, LocalDateTime.now());
+    }
+
+    public void appendAll(SubscriptionEventType type, Collection<SubscriptionView> views) {
+        Buffer buffer = buffer();
+        LocalDateTime now = LocalDateTime.now();
+        for (SubscriptionView view : views) {
+            buffer.add(type, view, now);
+        }
+    }
+
+    // The buffer of the current transaction, registered on first use
+    private Buffer buffer() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new RuntimeException("Subscription history can only be appended inside a transaction");
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Buffer buffer) {
+                return buffer;
+            }
+        }
+        Buffer buffer = new Buffer();
+        TransactionSynchronizationManager.registerSynchronization(buffer);
+        return buffer;
+    }
+
+    private void write(List<Object[]> rows) {
+        int blocks = (rows.size() + ID_BLOCK - 1) / ID_BLOCK;
+        List<Long> blockStarts = jdbcTemplate.queryForList(NEXT_ID_BLOCKS_SQL, Long.class, blocks);
+        for (int k = 0; k < rows.size(); k++) {
+            rows.get(k)[0] = blockStarts.get(k / ID_BLOCK) + k % ID_BLOCK;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    private final class Buffer implements TransactionSynchronization {
+        private final List<Object[]> rows = new ArrayList<>();
+
+        void add(SubscriptionEventType type, SubscriptionView view, LocalDateTime now) {
+            rows.add(new Object[] { null, Date.valueOf(now.toLocalDate()), Timestamp.valueOf(now), view.userId(),
+                    view.subscriptionId(), type.name(), view.planId(), view.tierId(),
+                    view.status() == null ? null : view.status().name(),
+                    view.startDate() == null ? null : Date.valueOf(view.startDate()),
+                    view.endDate() == null ? null : Date.valueOf(view.endDate()) });
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (!rows.isEmpty()) {
+                write(rows);
+            }
+        }
+    }
+}
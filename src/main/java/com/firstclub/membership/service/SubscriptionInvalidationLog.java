@@ -0,0 +1,64 @@
+package com.firstclub.membership.service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Log of users whose subscription changed, kept per shard in
+ * {@code subscription_invalidation}. Rows are inserted in the writing
+ * transaction without touching any shared row, so writers never queue behind
+ * each other; readers poll by time and use the id to skip rows they already saw.
+ */
+@Component
+public class SubscriptionInvalidationLog {
+
+    private static final String INSERT_SQL = "insert into subscription_invalidation (id, user_id, node_id, changed_at)"
+            + " values (next value for subscription_invalidation_seq, ?, ?, localtimestamp)";
+    private static final String NOW_SQL = "select localtimestamp";
+    private static final String SINCE_SQL = "select id, user_id, node_id from subscription_invalidation"
+            + " where changed_at >= ?";
+    private static final String PURGE_SQL = "delete from subscription_invalidation where changed_at < ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public record Entry(long id, long userId, String nodeId) {
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Records the users in the current transaction, on the current shard.
+     */
+    public void record(Collection<Long> userIds) {
+        List<Object[]> rows = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            rows.add(new Object[] { userId, nodeId });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    public Timestamp now() {
+        return jdbcTemplate.queryForObject(NOW_SQL, Timestamp.class);
+    }
+
+    public List<Entry> since(Timestamp from) {
+        return jdbcTemplate.query(SINCE_SQL, (rs, i) -> new Entry(rs.getLong("id"), rs.getLong("user_id"),
+                rs.getString("node_id")), from);
+    }
+
+    public int purge(Timestamp before) {
+        return jdbcTemplate.update(PURGE_SQL, before);
+    }
+}
@@ -0,0 +1,89 @@
+package com.firstclub.membership.service;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.firstclub.membership.model.Tier;
+import com.firstclub.membership.repository.TierRepository;
+
+/**
+ * Holds the current {@link TierSnapshot}. Reads are a single volatile load;
+ * the snapshot is rebuilt from the database only after tiers change.
+ */
+@Component
+public class TierCatalog {
+
+    @Autowired
+    private TierRepository tierRepository;
+    @Autowired
+    private CohortDictionary cohortDictionary;
+
+    private final AtomicLong versions = new AtomicLong();
+    private volatile TierSnapshot current;
+    private volatile boolean stale = true;
+
+    public TierSnapshot snapshot() {
+        TierSnapshot snapshot = current;
+        if (snapshot == null || stale) {
+            return refresh();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Last built snapshot without triggering a rebuild (may be stale or null).
+     * For callers that must not query, such as JPA flush callbacks.
+     */
+    public TierSnapshot peek() {
+        return current;
+    }
+
+    /**
+     * Marks the snapshot stale once the surrounding transaction commits (or right
+     * away when there is none), so readers never rebuild from uncommitted rows.
+     */
+    public void invalidateAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Serves {@code tiers} (e.g. from the warm-start snapshot) until the next invalidation.
+     */
+    public synchronized TierSnapshot install(Collection<Tier> tiers) {
+        TierSnapshot snapshot = TierSnapshot.build(versions.incrementAndGet(), tiers, cohortDictionary::intern);
+        current = snapshot;
+        stale = false;
+        return snapshot;
+    }
+
+    private synchronized TierSnapshot refresh() {
+        TierSnapshot snapshot = current;
+        if (snapshot != null && !stale) {
+            return snapshot; // another thread already rebuilt it
+        }
+        // Clear the flag before reading so a concurrent invalidate forces another rebuild.
+        stale = false;
+        // A cohort named by a tier gets its bit even before anyone is assigned to it
+        snapshot = TierSnapshot.build(versions.incrementAndGet(), tierRepository.findAll(), cohortDictionary::intern);
+        current = snapshot;
+        return snapshot;
+    }
+}
@@ -0,0 +1,86 @@
+package com.firstclub.membership.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.firstclub.membership.event.TierChangedEvent;
+import com.firstclub.membership.model.Tier;
+import com.firstclub.membership.model.User;
+
+/**
+ * Keeps {@link User#getCurrentTierId()} in step with the user's stats. Each
+ * stats change is first checked against the precomputed thresholds of the
+ * current tier; eligibility is only recomputed when a boundary may have been
+ * crossed, and a {@link TierChangedEvent} is published once the transaction
+ * that moved the user has committed.
+ */
+@Component
+public class TierCrossingDetector {
+
+    @Autowired
+    private TierCatalog tierCatalog;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Updates the entity's current tier in place. Called from the JPA flush, so it
+     * only uses an already built snapshot and never queries.
+     */
+    public void onStatsChanged(User user) {
+        TierSnapshot tiers = tierCatalog.peek();
+        if (tiers == null) {
+            return; // nothing built yet; reads fall back to computing the tier
+        }
+        Long newTierId = evaluate(tiers, user.getId(), user.getCurrentTierId(), user.getTotalOrders(),
+                user.getTotalSpent(), user.getCohortMask());
+        if (newTierId != null) {
+            user.setCurrentTierId(newTierId);
+        }
+    }
+
+    /**
+     * @return the new tier id if the user moved to another tier, otherwise null
+     */
+    public Long evaluate(Long userId, Long currentTierId, int totalOrders, double totalSpent, long cohortMask) {
+        return evaluate(tierCatalog.snapshot(), userId, currentTierId, totalOrders, totalSpent, cohortMask);
+    }
+
+    private Long evaluate(TierSnapshot tiers, Long userId, Long currentTierId, int totalOrders, double totalSpent,
+            long cohortMask) {
+        if (tiers.size() == 0) {
+            return null;
+        }
+        int current = tiers.indexOf(currentTierId);
+        if (current >= 0 && !tiers.mayHaveCrossed(current, totalOrders, totalSpent, cohortMask)) {
+            return null;
+        }
+        int next = tiers.eligibleIndex(totalOrders, totalSpent, cohortMask);
+        if (next == current) {
+            return null;
+        }
+        Tier to = tiers.tierAt(next);
+        if (current >= 0) {
+            Tier from = tiers.tierAt(current);
+            publishAfterCommit(new TierChangedEvent(userId, from.getId(), from.getName(), to.getId(),
+                    to.getName(), next > current));
+        }
+        return to.getId();
+    }
+
+    // Listeners must not see a tier that may still roll back, nor run inside the flush
+    private void publishAfterCommit(TierChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eventPublisher.publishEvent(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eventPublisher.publishEvent(event);
+            }
+        });
+    }
+}
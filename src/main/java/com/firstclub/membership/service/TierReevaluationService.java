@@ -0,0 +1,271 @@
+package com.firstclub.membership.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.firstclub.membership.dto.TierReevaluationReport;
+import com.firstclub.membership.event.TierChangedEvent;
+import com.firstclub.membership.model.Tier;
+import com.firstclub.membership.shard.ShardRouter;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Recomputes every user's tier against the current tier snapshot, e.g. after a
+ * threshold change. Each shard is walked in id order with keyset pages read into
+ * primitive arrays, so only one page per shard is ever held; a page is evaluated
+ * in parallel on a fork/join pool and only the users whose tier changes are
+ * written back, in one batch per page.
+ * <p>
+ * The write is conditional on the stats read, so a user updated while the job
+ * runs is skipped rather than overwritten; that write already re-evaluated the
+ * tier through the {@link TierCrossingDetector}. A dry run only reports.
+ */
+@Slf4j
+@Service
+public class TierReevaluationService {
+
+    private static final String PAGE_SQL = "select id, total_orders, total_spent, cohort_mask, current_tier_id"
+            + " from users where id > ? order by id limit ?";
+    private static final String SET_TIER_SQL = "update users set current_tier_id = ? where id = ?"
+            + " and total_orders = ? and total_spent = ? and cohort_mask = ?";
+
+    @Autowired
+    private TierCatalog tierCatalog;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ShardRouter shardRouter;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final int pageSize;
+    private final ForkJoinPool pool;
+
+    public TierReevaluationService(@Value("${membership.tier-reevaluation.page-size:10000}") int pageSize,
+            @Value("${membership.tier-reevaluation.parallelism:0}") int parallelism) {
+        this.pageSize = pageSize;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Re-evaluates all users. Runs one at a time.
+     *
+     * @param dryRun only count the transitions, write nothing
+     */
+    public synchronized TierReevaluationReport reevaluate(boolean dryRun) {
+        long started = System.currentTimeMillis();
+        TierSnapshot tiers = tierCatalog.snapshot();
+        if (tiers.size() == 0) {
+            throw new RuntimeException("No tiers defined");
+        }
+        Tally total = new Tally(tiers.size());
+        for (Tally shard : shardRouter.onEachShard(shard -> reevaluateShard(tiers, dryRun))) {
+            total.add(shard);
+        }
+
+        // Row 0 / column 0 of the matrix is "no tier"
+        Map<String, Long> transitions = new TreeMap<>();
+        for (int from = 0; from <= tiers.size(); from++) {
+            for (int to = 1; to <= tiers.size(); to++) {
+                long count = total.transitions[from][to];
+                if (count > 0) {
+                    String fromName = from == 0 ? "(none)" : tiers.tierAt(from - 1).getName();
+                    transitions.put(fromName + " -> " + tiers.tierAt(to - 1).getName(), count);
+                }
+            }
+        }
+        TierReevaluationReport report = new TierReevaluationReport(dryRun, tiers.getVersion(), total.scanned,
+                total.changed, total.upgrades, total.downgrades, total.skipped, transitions,
+                System.currentTimeMillis() - started);
+        log.info("Tier re-evaluation{}: {} users scanned, {} changed ({} up, {} down), {} skipped in {} ms",
+                dryRun ? " (dry run)" : "", report.usersScanned(), report.usersChanged(), report.upgrades(),
+                report.downgrades(), report.skipped(), report.elapsedMillis());
+        return report;
+    }
+
+    // Runs routed to one shard
+    private Tally reevaluateShard(TierSnapshot tiers, boolean dryRun) {
+        Tally tally = new Tally(tiers.size());
+        Page page = new Page(pageSize);
+        long afterId = 0;
+        while (true) {
+            page.load(jdbcTemplate, afterId);
+            if (page.size == 0) {
+                break;
+            }
+            pool.invoke(new EvaluateTask(page, tiers, 0, page.size));
+
+            List<Object[]> updates = new ArrayList<>();
+            List<Integer> changedAt = new ArrayList<>();
+            for (int i = 0; i < page.size; i++) {
+                if (page.newIndex[i] != page.currentIndex[i]) {
+                    changedAt.add(i);
+                    updates.add(new Object[] { tiers.tierAt(page.newIndex[i]).getId(), page.ids[i], page.orders[i],
+                            page.spent[i], page.cohortMasks[i] });
+                }
+            }
+            tally.scanned += page.size;
+            if (!updates.isEmpty()) {
+                int[] counts = dryRun ? null
+                        : transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(SET_TIER_SQL, updates));
+                if (counts != null) {
+                    publishChanges(tiers, page, changedAt, counts); // committed by now
+                }
+                for (int n = 0; n < changedAt.size(); n++) {
+                    if (counts != null && counts[n] == 0) {
+                        tally.skipped++;
+                    } else {
+                        tally.count(page.currentIndex[changedAt.get(n)], page.newIndex[changedAt.get(n)]);
+                    }
+                }
+            }
+            afterId = page.ids[page.size - 1];
+            if (page.size < pageSize) {
+                break;
+            }
+        }
+        return tally;
+    }
+
+    // Same events as a stats-driven move; none for a first assignment
+    private void publishChanges(TierSnapshot tiers, Page page, List<Integer> changedAt, int[] written) {
+        for (int n = 0; n < changedAt.size(); n++) {
+            int i = changedAt.get(n);
+            if (written[n] == 0 || page.currentIndex[i] < 0) {
+                continue;
+            }
+            Tier from = tiers.tierAt(page.currentIndex[i]);
+            Tier to = tiers.tierAt(page.newIndex[i]);
+            eventPublisher.publishEvent(new TierChangedEvent(page.ids[i], from.getId(), from.getName(), to.getId(),
+                    to.getName(), page.newIndex[i] > page.currentIndex[i]));
+        }
+    }
+
+    /**
+     * One keyset page of users as primitive arrays, reused for every page of a shard.
+     */
+    private static final class Page {
+        final long[] ids;
+        final int[] orders;
+        final double[] spent;
+        final long[] cohortMasks;
+        final int[] currentIndex; // rank of the stored tier, -1 if none or unknown
+        final int[] newIndex;
+        final long[] currentTierIds;
+        int size;
+
+        Page(int capacity) {
+            ids = new long[capacity];
+            orders = new int[capacity];
+            spent = new double[capacity];
+            cohortMasks = new long[capacity];
+            currentIndex = new int[capacity];
+            newIndex = new int[capacity];
+            currentTierIds = new long[capacity];
+        }
+
+        void load(JdbcTemplate jdbcTemplate, long afterId) {
+            size = 0;
+            jdbcTemplate.query(PAGE_SQL, rs -> {
+                ids[size] = rs.getLong("id");
+                orders[size] = rs.getInt("total_orders");
+                spent[size] = rs.getDouble("total_spent");
+                cohortMasks[size] = rs.getLong("cohort_mask");
+                long tierId = rs.getLong("current_tier_id");
+                currentTierIds[size] = rs.wasNull() ? -1 : tierId;
+                size++;
+            }, afterId, ids.length);
+        }
+    }
+
+    private static final class EvaluateTask extends RecursiveAction {
+        private static final int THRESHOLD = 1024;
+
+        private final Page page;
+        private final TierSnapshot tiers;
+        private final int from;
+        private final int to;
+
+        EvaluateTask(Page page, TierSnapshot tiers, int from, int to) {
+            this.page = page;
+            this.tiers = tiers;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    int current = page.currentTierIds[i] < 0 ? -1 : tiers.indexOf(page.currentTierIds[i]);
+                    page.currentIndex[i] = current;
+                    page.newIndex[i] = tiers.eligibleIndex(page.orders[i], page.spent[i], page.cohortMasks[i]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new EvaluateTask(page, tiers, from, mid), new EvaluateTask(page, tiers, mid, to));
+        }
+    }
+
+    /**
+     * Per-shard counters; transitions[from + 1][to + 1] with index 0 for "no tier".
+     */
+    private static final class Tally {
+        final long[][] transitions;
+        long scanned;
+        long changed;
+        long upgrades;
+        long downgrades;
+        long skipped;
+
+        Tally(int tierCount) {
+            transitions = new long[tierCount + 1][tierCount + 1];
+        }
+
+        void count(int from, int to) {
+            transitions[from + 1][to + 1]++;
+            changed++;
+            if (from >= 0) {
+                if (to > from) {
+                    upgrades++;
+                } else {
+                    downgrades++;
+                }
+            }
+        }
+
+        void add(Tally other) {
+            for (int i = 0; i < transitions.length; i++) {
+                for (int j = 0; j < transitions[i].length; j++) {
+                    transitions[i][j] += other.transitions[i][j];
+                }
+            }
+            scanned += other.scanned;
+            changed += other.changed;
+            upgrades += other.upgrades;
+            downgrades += other.downgrades;
+            skipped += other.skipped;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.firstclub.membership.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import com.firstclub.membership.dto.Benefits;
+import com.firstclub.membership.model.BenefitKey;
+import com.firstclub.membership.model.DeliveryClass;
+import com.firstclub.membership.model.SupportPriority;
+import com.firstclub.membership.model.Tier;
+import com.firstclub.membership.model.User;
+
+/**
+ * Immutable, versioned view of all tiers, sorted by rank (lowest first) and
+ * compiled into flat threshold arrays so eligibility is a plain array scan.
+ * Benefit strings are parsed here too, so callers only see typed values.
+ * Cohort rules are compiled to bit masks: a user qualifies when their cohort
+ * mask has the tier's cohort bit.
+ */
+public final class TierSnapshot {
+
+    private final long version;
+    private final Tier[] tiers;
+    private final int[] minOrders;
+    private final double[] minSpent;
+    private final long[] requiredCohort; // 0 = open to all cohorts
+    // Lowest order count / spend any higher ranked tier asks for
+    private final int[] nextMinOrders;
+    private final double[] nextMinSpent;
+    private final int baseIndex;
+    private final Map<Long, Integer> indexById;
+    // Compiled from Tier.benefits; one shared Benefits per tier
+    private final int[] discountBasisPoints;
+    private final DeliveryClass[] delivery;
+    private final SupportPriority[] support;
+    private final Benefits[] benefits;
+
+    private TierSnapshot(long version, Tier[] tiers, int baseIndex, ToIntFunction<String> cohortIds) {
+        this.version = version;
+        this.tiers = tiers;
+        this.baseIndex = baseIndex;
+        this.minOrders = new int[tiers.length];
+        this.minSpent = new double[tiers.length];
+        this.requiredCohort = new long[tiers.length];
+        this.discountBasisPoints = new int[tiers.length];
+        this.delivery = new DeliveryClass[tiers.length];
+        this.support = new SupportPriority[tiers.length];
+        this.benefits = new Benefits[tiers.length];
+        Map<Long, Integer> byId = new HashMap<>();
+        for (int i = 0; i < tiers.length; i++) {
+            Tier t = tiers[i];
+            minOrders[i] = t.getMinOrderCount();
+            minSpent[i] = t.getMinTotalSpent();
+            requiredCohort[i] = cohortBit(t, cohortIds);
+            byId.put(t.getId(), i);
+
+            Map<String, String> config = t.getBenefits() == null ? Map.of() : t.getBenefits();
+            discountBasisPoints[i] = parseDiscount(t, config.get(BenefitKey.DISCOUNT));
+            delivery[i] = parseEnum(t, DeliveryClass.class, config.get(BenefitKey.DELIVERY), DeliveryClass.STANDARD);
+            support[i] = parseEnum(t, SupportPriority.class, config.get(BenefitKey.SUPPORT), SupportPriority.STANDARD);
+            benefits[i] = new Benefits(t.getId(), t.getName(), discountBasisPoints[i], delivery[i], support[i]);
+        }
+        this.indexById = Collections.unmodifiableMap(byId);
+
+        this.nextMinOrders = new int[tiers.length];
+        this.nextMinSpent = new double[tiers.length];
+        int orders = Integer.MAX_VALUE;
+        double spent = Double.POSITIVE_INFINITY;
+        for (int i = tiers.length - 1; i >= 0; i--) {
+            nextMinOrders[i] = orders;
+            nextMinSpent[i] = spent;
+            orders = Math.min(orders, minOrders[i]);
+            spent = Math.min(spent, minSpent[i]);
+        }
+    }
+
+    private static long cohortBit(Tier tier, ToIntFunction<String> cohortIds) {
+        String cohort = tier.getRequiredCohort();
+        if (cohort == null || cohort.isBlank()) {
+            return 0L;
+        }
+        int id = cohortIds.applyAsInt(cohort);
+        if (id < 0 || id >= Long.SIZE) {
+            throw new RuntimeException("Unknown cohort '" + cohort + "' on tier " + tier.getName());
+        }
+        return 1L << id;
+    }
+
+    // "10%", "12.5%" or "10" -> basis points
+    private static int parseDiscount(Tier tier, String value) {
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        String number = value.trim();
+        if (number.endsWith("%")) {
+            number = number.substring(0, number.length() - 1).trim();
+        }
+        try {
+            int basisPoints = new BigDecimal(number).movePointRight(2).intValueExact();
+            if (basisPoints < 0 || basisPoints > 10_000) {
+                throw new RuntimeException("Discount of tier " + tier.getName() + " must be between 0% and 100%");
+            }
+            return basisPoints;
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new RuntimeException("Invalid discount '" + value + "' on tier " + tier.getName(), e);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Tier tier, Class<E> type, String value, E fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid " + type.getSimpleName() + " '" + value + "' on tier "
+                    + tier.getName(), e);
+        }
+    }
+
+    /**
+     * Snapshot of tiers without cohort rules; a tier that requires a cohort fails the build.
+     */
+    public static TierSnapshot build(long version, Collection<Tier> source) {
+        return build(version, source, cohort -> -1);
+    }
+
+    /**
+     * @param cohortIds bit of a cohort name (see CohortDictionary), -1 if unknown
+     */
+    public static TierSnapshot build(long version, Collection<Tier> source, ToIntFunction<String> cohortIds) {
+        // Rank is inferred from the criteria: more spend required = higher tier.
+        List<Tier> sorted = new ArrayList<>(source);
+        sorted.sort(Comparator.comparingDouble(Tier::getMinTotalSpent)
+                .thenComparingInt(Tier::getMinOrderCount)
+                .thenComparing(Tier::getId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        Tier[] tiers = sorted.toArray(new Tier[0]);
+
+        // Default to Silver when nothing matches, otherwise the lowest ranked tier.
+        int base = tiers.length == 0 ? -1 : 0;
+        for (int i = 0; i < tiers.length; i++) {
+            if ("Silver".equalsIgnoreCase(tiers[i].getName())) {
+                base = i;
+                break;
+            }
+        }
+        return new TierSnapshot(version, tiers, base, cohortIds);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return tiers.length;
+    }
+
+    public Tier tierAt(int index) {
+        return tiers[index];
+    }
+
+    /**
+     * Rank index of the tier with the given id, or -1 if it is not in this snapshot.
+     */
+    public int indexOf(Long tierId) {
+        Integer index = tierId == null ? null : indexById.get(tierId);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * O(1) boundary check for a user currently placed in tier {@code index}: false
+     * means the stats still satisfy that tier and cannot satisfy any higher one.
+     */
+    public boolean mayHaveCrossed(int index, int totalOrders, double totalSpent, long cohortMask) {
+        boolean stillMeetsCurrent = totalOrders >= minOrders[index] && totalSpent >= minSpent[index]
+                && (requiredCohort[index] == 0 || (cohortMask & requiredCohort[index]) != 0);
+        boolean mayReachHigher = totalOrders >= nextMinOrders[index] && totalSpent >= nextMinSpent[index];
+        return !stillMeetsCurrent || mayReachHigher;
+    }
+
+    /**
+     * Rank of the user's tier, trusting the stored tier while it is still valid.
+     */
+    public int currentIndex(Long currentTierId, int totalOrders, double totalSpent, long cohortMask) {
+        int current = indexOf(currentTierId);
+        if (current >= 0 && !mayHaveCrossed(current, totalOrders, totalSpent, cohortMask)) {
+            return current;
+        }
+        return eligibleIndex(totalOrders, totalSpent, cohortMask);
+    }
+
+    public Benefits benefitsAt(int index) {
+        return benefits[index];
+    }
+
+    /**
+     * Benefits of the tier with the given id, or {@link Benefits#NONE} if it is not in this snapshot.
+     */
+    public Benefits benefitsOf(Long tierId) {
+        int index = indexOf(tierId);
+        return index < 0 ? Benefits.NONE : benefits[index];
+    }
+
+    public int discountBasisPointsAt(int index) {
+        return discountBasisPoints[index];
+    }
+
+    public DeliveryClass deliveryAt(int index) {
+        return delivery[index];
+    }
+
+    public SupportPriority supportAt(int index) {
+        return support[index];
+    }
+
+    public Tier eligibleTier(User user) {
+        return tiers[currentIndex(user.getCurrentTierId(), user.getTotalOrders(), user.getTotalSpent(),
+                user.getCohortMask())];
+    }
+
+    /**
+     * Highest ranked tier whose order, spend and cohort criteria are all met.
+     * Falls back to the base tier. Allocation free.
+     */
+    public int eligibleIndex(int totalOrders, double totalSpent, long cohortMask) {
+        for (int i = tiers.length - 1; i >= 0; i--) {
+            if (totalOrders >= minOrders[i] && totalSpent >= minSpent[i]
+                    && (requiredCohort[i] == 0 || (cohortMask & requiredCohort[i]) != 0)) {
+                return i;
+            }
+        }
+        if (baseIndex < 0) {
+            throw new RuntimeException("Base Silver tier not found");
+        }
+        return baseIndex;
+    }
+}
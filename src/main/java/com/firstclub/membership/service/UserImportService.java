@@ -0,0 +1,545 @@
+package com.firstclub.membership.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.firstclub.membership.dto.ImportResult;
+import com.firstclub.membership.dto.SubscriptionView;
+import com.firstclub.membership.model.ImportCheckpoint;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.SubscriptionEventType;
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.firstclub.membership.repository.ImportCheckpointRepository;
+import com.firstclub.membership.shard.ShardContext;
+import com.firstclub.membership.shard.ShardRouter;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk import of users (with order stats and an optional initial plan) from a
+ * CSV or NDJSON file in {@code membership.import.dir}.
+ * <p>
+ * The file is streamed through a fixed NIO buffer and handled in chunks of
+ * {@code membership.import.chunk-size} rows held in reused arrays, so memory does
+ * not grow with the file. Eligible tiers of a chunk are computed in parallel on
+ * a fork/join pool; users, subscriptions and the checkpoint are then written in
+ * one transaction with JDBC batches. A rerun of the same file continues after
+ * the last committed chunk, and a completed file is not imported twice.
+ * <p>
+ * CSV needs a header; recognised columns are name, email, total_orders,
+ * total_spent, cohort and plan_id. NDJSON lines use name, email, totalOrders,
+ * totalSpent, cohort and planId. A user in several cohorts lists them separated
+ * by ';'; unknown cohorts are added to the dictionary.
+ */
+@Slf4j
+@Service
+public class UserImportService {
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    // H2: one round trip for many sequence values
+    private static final String NEXT_USER_IDS_SQL = "select next value for users_seq from system_range(1, ?)";
+    private static final String NEXT_SUBSCRIPTION_BLOCKS_SQL =
+            "select next value for subscription_seq from system_range(1, ?)";
+    // allocationSize of subscription_seq: each sequence value is the low end of a block this size
+    private static final int SUBSCRIPTION_ID_BLOCK = 50;
+    private static final String INSERT_USER_SQL = "insert into users"
+            + " (id, name, email, total_orders, total_spent, cohort_mask, current_tier_id) values (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SUBSCRIPTION_SQL = "insert into subscription"
+            + " (id, user_id, plan_id, start_date, end_date, status, version) values (?, ?, ?, ?, ?, ?, 0)";
+    private static final int MAX_LINE_BYTES = 1 << 20;
+    private static final int MAX_LOGGED_SKIPS = 20;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private PlanCatalog planCatalog;
+    @Autowired
+    private ImportCheckpointRepository importCheckpointRepository;
+    @Autowired
+    private OutboxWriter outboxWriter;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private ShardRouter shardRouter;
+    @Autowired
+    private CohortDictionary cohortDictionary;
+
+    private final Path importDir;
+    private final int chunkSize;
+    private final int readBufferBytes;
+    private final ForkJoinPool pool;
+
+    public UserImportService(@Value("${membership.import.dir:imports}") String importDir,
+            @Value("${membership.import.chunk-size:5000}") int chunkSize,
+            @Value("${membership.import.read-buffer-bytes:1048576}") int readBufferBytes,
+            @Value("${membership.import.parallelism:0}") int parallelism) {
+        this.importDir = Path.of(importDir).toAbsolutePath().normalize();
+        this.chunkSize = chunkSize;
+        this.readBufferBytes = readBufferBytes;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Imports {@code fileName} (relative to the import directory). Imports run one
+     * at a time.
+     *
+     * @param format  null to pick from the extension (.csv, otherwise NDJSON)
+     * @param restart ignore and discard an existing checkpoint for this file
+     */
+    public synchronized ImportResult importFile(String fileName, Format format, boolean restart) {
+        Path path = importDir.resolve(fileName).normalize();
+        if (!path.startsWith(importDir) || !Files.isRegularFile(path)) {
+            throw new RuntimeException("Import file not found: " + fileName);
+        }
+        if (format == null) {
+            format = path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv") ? Format.CSV
+                    : Format.NDJSON;
+        }
+        try {
+            return run(path, path.toString(), format, restart);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read " + fileName, e);
+        }
+    }
+
+    private ImportResult run(Path path, String source, Format format, boolean restart) throws IOException {
+        long fileSize = Files.size(path);
+        if (restart) {
+            shardRouter.onEachShard(shard -> transactionTemplate.execute(status -> {
+                importCheckpointRepository.deleteById(source);
+                return null;
+            }));
+        }
+        ImportCheckpoint progress = latestCheckpoint(source);
+        if (progress == null) {
+            progress = new ImportCheckpoint(source, fileSize, 0, 0, 0, 0, 0, 0, false, null);
+        } else if (progress.getFileSize() != fileSize) {
+            throw new RuntimeException("File changed since the last import attempt, import it with restart");
+        }
+        long resumedFrom = progress.getByteOffset();
+        if (progress.isCompleted()) {
+            return toResult(progress, resumedFrom);
+        }
+
+        PlanSnapshot catalog = planCatalog.snapshot();
+        Chunk chunk = new Chunk(chunkSize);
+        int skipsLogged = 0;
+        try (LineReader reader = new LineReader(FileChannel.open(path, StandardOpenOption.READ), readBufferBytes)) {
+            Map<String, Integer> columns = null;
+            if (format == Format.CSV) {
+                String header = reader.next();
+                if (header == null) {
+                    throw new RuntimeException("CSV file has no header");
+                }
+                columns = csvColumns(header);
+            }
+            if (progress.getByteOffset() > reader.position()) {
+                reader.seek(progress.getByteOffset());
+            }
+
+            int chunkNumber = 0;
+            boolean eof = false;
+            while (!eof) {
+                chunk.clear();
+                long read = 0;
+                long skipped = 0;
+                while (chunk.size < chunkSize) {
+                    String line = reader.next();
+                    if (line == null) {
+                        eof = true;
+                        break;
+                    }
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    read++;
+                    try {
+                        if (format == Format.CSV) {
+                            parseCsv(line, columns, chunk);
+                        } else {
+                            parseJson(line, chunk);
+                        }
+                    } catch (RuntimeException e) {
+                        skipped++;
+                        if (skipsLogged++ < MAX_LOGGED_SKIPS) {
+                            log.warn("Skipping row near byte {} of {}: {}", reader.position(), source, e.getMessage());
+                        }
+                    }
+                }
+                if (chunk.size == 0 && read == 0) {
+                    break;
+                }
+
+                resolveCohorts(chunk);
+                pool.invoke(new TierTask(chunk, catalog.getTiers(), 0, chunk.size));
+
+                ImportCheckpoint next = new ImportCheckpoint(source, fileSize, reader.position(),
+                        progress.getRowsRead() + read, progress.getRowsSkipped() + skipped,
+                        progress.getUsersImported(), progress.getSubscriptionsImported(),
+                        progress.getSubscriptionsRejected(), false, LocalDateTime.now());
+                // Spread chunks over the shards; ids come from the shard's own sequence
+                int shard = Math.floorMod(chunkNumber++, shardRouter.getShardCount());
+                ShardContext.runOn(shard, () -> transactionTemplate
+                        .executeWithoutResult(status -> writeChunk(chunk, catalog, next)));
+                progress = next;
+            }
+        }
+
+        progress.setCompleted(true);
+        progress.setUpdatedAt(LocalDateTime.now());
+        ImportCheckpoint done = progress;
+        ShardContext.runOn(0, () -> transactionTemplate.execute(status -> importCheckpointRepository.save(done)));
+        log.info("Imported {} users and {} subscriptions from {}", done.getUsersImported(),
+                done.getSubscriptionsImported(), source);
+        return toResult(done, resumedFrom);
+    }
+
+    private void resolveCohorts(Chunk chunk) {
+        for (int i = 0; i < chunk.size; i++) {
+            chunk.cohortMasks[i] = chunk.cohorts[i] == null ? 0L
+                    : cohortDictionary.maskOf(Arrays.asList(chunk.cohorts[i].split(";")));
+        }
+    }
+
+    // Highest committed offset over all shards; chunks are written in file order
+    private ImportCheckpoint latestCheckpoint(String source) {
+        ImportCheckpoint latest = null;
+        for (ImportCheckpoint checkpoint : shardRouter
+                .onEachShard(shard -> importCheckpointRepository.findById(source).orElse(null))) {
+            if (checkpoint != null && (latest == null || checkpoint.getByteOffset() > latest.getByteOffset()
+                    || checkpoint.getByteOffset() == latest.getByteOffset() && checkpoint.isCompleted())) {
+                latest = checkpoint;
+            }
+        }
+        return latest;
+    }
+
+    private void writeChunk(Chunk chunk, PlanSnapshot catalog, ImportCheckpoint checkpoint) {
+        int n = chunk.size;
+        if (n > 0) {
+            List<Long> userIds = jdbcTemplate.queryForList(NEXT_USER_IDS_SQL, Long.class, n);
+            TierSnapshot tiers = catalog.getTiers();
+            List<Object[]> users = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                users.add(new Object[] { userIds.get(i), chunk.names[i], chunk.emails[i], chunk.orders[i],
+                        chunk.spent[i], chunk.cohortMasks[i], tiers.tierAt(chunk.tierIndex[i]).getId() });
+            }
+            jdbcTemplate.batchUpdate(INSERT_USER_SQL, users);
+            writeSubscriptions(chunk, catalog, userIds, checkpoint);
+            checkpoint.setUsersImported(checkpoint.getUsersImported() + n);
+        }
+        importCheckpointRepository.save(checkpoint);
+    }
+
+    private void writeSubscriptions(Chunk chunk, PlanSnapshot catalog, List<Long> userIds,
+            ImportCheckpoint checkpoint) {
+        TierSnapshot tiers = catalog.getTiers();
+        List<Integer> rows = new ArrayList<>();
+        long rejected = 0;
+        for (int i = 0; i < chunk.size; i++) {
+            if (chunk.planIds[i] == null) {
+                continue;
+            }
+            Plan plan = catalog.plan(chunk.planIds[i]);
+            // Same rule as subscribe: no plan above the user's eligible tier
+            if (plan == null || plan.getTier().getMinTotalSpent() > tiers.tierAt(chunk.tierIndex[i]).getMinTotalSpent()) {
+                rejected++;
+                continue;
+            }
+            rows.add(i);
+        }
+        checkpoint.setSubscriptionsRejected(checkpoint.getSubscriptionsRejected() + rejected);
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        int blocks = (rows.size() + SUBSCRIPTION_ID_BLOCK - 1) / SUBSCRIPTION_ID_BLOCK;
+        List<Long> blockStarts = jdbcTemplate.queryForList(NEXT_SUBSCRIPTION_BLOCKS_SQL, Long.class, blocks);
+        LocalDate today = LocalDate.now();
+        List<Object[]> subscriptions = new ArrayList<>(rows.size());
+        List<SubscriptionView> views = new ArrayList<>(rows.size());
+        for (int k = 0; k < rows.size(); k++) {
+            int i = rows.get(k);
+            long id = blockStarts.get(k / SUBSCRIPTION_ID_BLOCK) + k % SUBSCRIPTION_ID_BLOCK;
+            Plan plan = catalog.plan(chunk.planIds[i]);
+            LocalDate endDate = MembershipService.calculateEndDate(today, plan.getDuration());
+            subscriptions.add(new Object[] { id, userIds.get(i), plan.getId(), Date.valueOf(today),
+                    Date.valueOf(endDate), SubscriptionStatus.ACTIVE.name() });
+            views.add(new SubscriptionView(id, userIds.get(i), plan.getId(), plan.getPlanName(),
+                    plan.getTier().getId(), plan.getTier().getName(), today, endDate, SubscriptionStatus.ACTIVE,
+                    false, null));
+        }
+        jdbcTemplate.batchUpdate(INSERT_SUBSCRIPTION_SQL, subscriptions);
+        outboxWriter.appendAll(SubscriptionEventType.SUBSCRIBED, views);
+        checkpoint.setSubscriptionsImported(checkpoint.getSubscriptionsImported() + rows.size());
+    }
+
+    private static ImportResult toResult(ImportCheckpoint c, long resumedFrom) {
+        return new ImportResult(c.getSource(), c.getRowsRead(), c.getRowsSkipped(), c.getUsersImported(),
+                c.getSubscriptionsImported(), c.getSubscriptionsRejected(), resumedFrom, c.isCompleted());
+    }
+
+    private static Map<String, Integer> csvColumns(String header) {
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsv(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT).replace("_", ""), i);
+        }
+        if (!columns.containsKey("email")) {
+            throw new RuntimeException("CSV header must contain an email column");
+        }
+        return columns;
+    }
+
+    private static void parseCsv(String line, Map<String, Integer> columns, Chunk chunk) {
+        List<String> fields = splitCsv(line);
+        chunk.add(field(fields, columns, "name"), field(fields, columns, "email"),
+                field(fields, columns, "totalorders"), field(fields, columns, "totalspent"),
+                field(fields, columns, "cohort"), field(fields, columns, "planid"));
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        return index == null || index >= fields.size() ? null : fields.get(index);
+    }
+
+    // RFC 4180 style: commas, double quotes, "" inside quotes
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private void parseJson(String line, Chunk chunk) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new RuntimeException("Invalid JSON");
+        }
+        chunk.add(text(node, "name"), text(node, "email"), text(node, "totalOrders"), text(node, "totalSpent"),
+                text(node, "cohort"), text(node, "planId"));
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    /**
+     * Rows of one chunk in parallel arrays, allocated once per import.
+     */
+    private static final class Chunk {
+        final String[] names;
+        final String[] emails;
+        final int[] orders;
+        final double[] spent;
+        final String[] cohorts;
+        final long[] cohortMasks;
+        final Long[] planIds;
+        final int[] tierIndex;
+        int size;
+
+        Chunk(int capacity) {
+            names = new String[capacity];
+            emails = new String[capacity];
+            orders = new int[capacity];
+            spent = new double[capacity];
+            cohorts = new String[capacity];
+            cohortMasks = new long[capacity];
+            planIds = new Long[capacity];
+            tierIndex = new int[capacity];
+        }
+
+        void clear() {
+            Arrays.fill(names, 0, size, null);
+            Arrays.fill(emails, 0, size, null);
+            Arrays.fill(cohorts, 0, size, null);
+            Arrays.fill(planIds, 0, size, null);
+            size = 0;
+        }
+
+        void add(String name, String email, String totalOrders, String totalSpent, String cohort, String planId) {
+            if (email == null || email.isBlank()) {
+                throw new RuntimeException("email is required");
+            }
+            int o = isBlank(totalOrders) ? 0 : Integer.parseInt(totalOrders.trim());
+            double s = isBlank(totalSpent) ? 0.0 : Double.parseDouble(totalSpent.trim());
+            if (o < 0 || s < 0 || Double.isNaN(s)) {
+                throw new RuntimeException("order stats must not be negative");
+            }
+            int i = size;
+            names[i] = isBlank(name) ? null : name.trim();
+            emails[i] = email.trim();
+            orders[i] = o;
+            spent[i] = s;
+            cohorts[i] = isBlank(cohort) ? null : cohort.trim();
+            planIds[i] = isBlank(planId) ? null : Long.valueOf(planId.trim());
+            size = i + 1;
+        }
+
+        private static boolean isBlank(String value) {
+            return value == null || value.isBlank();
+        }
+    }
+
+    /**
+     * Eligible tier of every row, split in halves until ranges are small.
+     */
+    private static final class TierTask extends RecursiveAction {
+        private static final int THRESHOLD = 1024;
+
+        private final Chunk chunk;
+        private final TierSnapshot tiers;
+        private final int from;
+        private final int to;
+
+        TierTask(Chunk chunk, TierSnapshot tiers, int from, int to) {
+            this.chunk = chunk;
+            this.tiers = tiers;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    chunk.tierIndex[i] = tiers.eligibleIndex(chunk.orders[i], chunk.spent[i], chunk.cohortMasks[i]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TierTask(chunk, tiers, from, mid), new TierTask(chunk, tiers, mid, to));
+        }
+    }
+
+    /**
+     * Reads lines through one fixed buffer and tracks the byte offset after the
+     * last returned line, which is what checkpoints store.
+     */
+    private static final class LineReader implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private byte[] line = new byte[256];
+        private int lineLength;
+        private long position;
+
+        LineReader(FileChannel channel, int bufferBytes) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocate(bufferBytes);
+            this.buffer.flip();
+        }
+
+        long position() {
+            return position;
+        }
+
+        void seek(long offset) throws IOException {
+            channel.position(offset);
+            buffer.clear().flip();
+            position = offset;
+        }
+
+        String next() throws IOException {
+            lineLength = 0;
+            long consumed = 0;
+            while (true) {
+                if (!buffer.hasRemaining()) {
+                    buffer.clear();
+                    int n = channel.read(buffer);
+                    buffer.flip();
+                    if (n <= 0) {
+                        if (consumed == 0) {
+                            return null;
+                        }
+                        position += consumed;
+                        return decode();
+                    }
+                }
+                byte b = buffer.get();
+                consumed++;
+                if (b == '\n') {
+                    position += consumed;
+                    return decode();
+                }
+                if (lineLength == line.length) {
+                    if (lineLength >= MAX_LINE_BYTES) {
+                        throw new RuntimeException("Line longer than " + MAX_LINE_BYTES + " bytes");
+                    }
+                    line = Arrays.copyOf(line, lineLength * 2);
+                }
+                line[lineLength++] = b;
+            }
+        }
+
+        private String decode() {
+            int length = lineLength > 0 && line[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+            return new String(line, 0, length, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
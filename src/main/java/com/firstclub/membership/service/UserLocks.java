@@ -0,0 +1,54 @@
+package com.firstclub.membership.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Striped per-user locks. Writes for the same user on this node run one after
+ * the other instead of racing into optimistic-lock and unique-key failures;
+ * different users only contend when they share a stripe.
+ */
+@Component
+public class UserLocks {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMs;
+
+    public UserLocks(@Value("${membership.user-locks.stripes:1024}") int stripes,
+            @Value("${membership.user-locks.timeout-ms:5000}") long timeoutMs) {
+        // Power of two so the stripe is a mask of the hash
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMs = timeoutMs;
+    }
+
+    public <T> T withLock(Long userId, Supplier<T> work) {
+        ReentrantLock lock = stripeFor(userId);
+        try {
+            if (!lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("Another request for this user is in progress, try again");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for user lock", e);
+        }
+        try {
+            return work.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripeFor(Long userId) {
+        int h = Long.hashCode(userId);
+        h ^= h >>> 16;
+        return stripes[h & (stripes.length - 1)];
+    }
+}
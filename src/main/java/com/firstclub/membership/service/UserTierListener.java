@@ -0,0 +1,27 @@
+package com.firstclub.membership.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+import com.firstclub.membership.model.User;
+
+/**
+ * JPA entity listener that re-evaluates the stored tier whenever a User row is written.
+ */
+@Component
+public class UserTierListener {
+
+    @Lazy
+    @Autowired
+    private TierCrossingDetector tierCrossingDetector;
+
+    @PrePersist
+    @PreUpdate
+    public void onWrite(User user) {
+        tierCrossingDetector.onStatsChanged(user);
+    }
+}
@@ -0,0 +1,353 @@
+package com.firstclub.membership.service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.firstclub.membership.dto.SubscriptionView;
+import com.firstclub.membership.model.MembershipDuration;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.firstclub.membership.model.Tier;
+import com.firstclub.membership.repository.PlanRepository;
+import com.firstclub.membership.repository.TierRepository;
+import com.firstclub.membership.shard.ShardContext;
+import com.firstclub.membership.shard.ShardRouter;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Binary warm-start file holding the tier/plan catalog and the hot part of the
+ * subscription cache. It is written periodically and on shutdown (to a temp
+ * file, then renamed) and memory-mapped when the application starts, before the
+ * web server accepts requests, so a restarted node serves from memory right away.
+ * <p>
+ * The database stays the source of truth: the catalog read from the file is
+ * checked against the database in the background and dropped if it differs.
+ * Cached subscriptions are only considered from a file written for the same
+ * datasource less than {@code max-age-seconds} ago, and each one is checked
+ * against its subscription row (one batched read per chunk of users) before it
+ * is loaded: the file may predate the last writes of a crashed node, and other
+ * nodes keep writing while this one is down.
+ */
+@Slf4j
+@Component
+public class WarmStartSnapshot implements SmartInitializingSingleton {
+
+    private static final int MAGIC = 0x46435753; // "FCWS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int REVALIDATE_CHUNK = 1000;
+    private static final String SUBSCRIPTIONS_SQL = "select id, user_id, plan_id, start_date, end_date, status,"
+            + " auto_renew, pending_plan_id from subscription where user_id in (:userIds)";
+
+    @Autowired
+    private TierCatalog tierCatalog;
+    @Autowired
+    private PlanCatalog planCatalog;
+    @Autowired
+    private SubscriptionCache subscriptionCache;
+    @Autowired
+    private TierRepository tierRepository;
+    @Autowired
+    private PlanRepository planRepository;
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${membership.warm-start.enabled:false}")
+    private boolean enabled;
+    @Value("${membership.warm-start.file:warm-start.bin}")
+    private Path file;
+    @Value("${membership.warm-start.max-age-seconds:300}")
+    private long maxAgeSeconds;
+    @Value("${membership.warm-start.max-cached-subscriptions:100000}")
+    private int maxCachedSubscriptions;
+    @Value("${spring.datasource.url}")
+    private String datasourceUrl;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled || !Files.isRegularFile(file)) {
+            return;
+        }
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            // A bad file only costs the warm start
+            log.warn("Ignoring warm-start snapshot {}", file, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${membership.warm-start.write-interval-ms:60000}",
+            initialDelayString = "${membership.warm-start.write-interval-ms:60000}")
+    public void scheduledWrite() {
+        if (enabled) {
+            write();
+        }
+    }
+
+    @PreDestroy
+    public void writeOnShutdown() {
+        if (enabled) {
+            write();
+        }
+    }
+
+    /**
+     * Writes the current catalog and cached subscriptions to the snapshot file.
+     */
+    public synchronized void write() {
+        try {
+            PlanSnapshot catalog = planCatalog.snapshot();
+            TierSnapshot tiers = catalog.getTiers();
+            List<Tier> tierList = new ArrayList<>(tiers.size());
+            for (int i = 0; i < tiers.size(); i++) {
+                tierList.add(tiers.tierAt(i));
+            }
+            byte[] catalogBytes = encodeCatalog(tierList, catalog.plans());
+            Map<Long, SubscriptionView> views = subscriptionCache.cachedViews(maxCachedSubscriptions);
+            views.values().removeIf(v -> v.startDate() == null || v.endDate() == null || v.status() == null);
+
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(System.currentTimeMillis());
+                writeString(out, datasourceUrl);
+                out.writeInt(catalogBytes.length);
+                out.write(catalogBytes);
+                out.writeInt(views.size());
+                for (Map.Entry<Long, SubscriptionView> entry : views.entrySet()) {
+                    out.writeLong(entry.getKey());
+                    writeView(out, entry.getValue());
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Wrote warm-start snapshot with {} subscriptions to {}", views.size(), file);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to write warm-start snapshot {}", file, e);
+        }
+    }
+
+    private void load() throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            throw new RuntimeException("Not a warm-start snapshot of this version");
+        }
+        long writtenAt = buffer.getLong();
+        boolean sameDatabase = datasourceUrl.equals(readString(buffer));
+
+        byte[] catalogBytes = new byte[buffer.getInt()];
+        buffer.get(catalogBytes);
+        if (sameDatabase) {
+            installCatalog(catalogBytes);
+        }
+
+        long ageMillis = System.currentTimeMillis() - writtenAt;
+        if (!sameDatabase || ageMillis < 0 || ageMillis > maxAgeSeconds * 1000) {
+            log.info("Warm-start snapshot {} is too old or from another database, subscriptions not loaded", file);
+            return;
+        }
+        int count = buffer.getInt();
+        Map<Long, SubscriptionView> views = new HashMap<>(Math.max(16, count * 4 / 3));
+        for (int i = 0; i < count; i++) {
+            long userId = buffer.getLong();
+            views.put(userId, readView(buffer));
+        }
+        Map<Long, SubscriptionView> current = revalidate(views);
+        subscriptionCache.preload(current);
+        log.info("Warm start: catalog and {} of {} cached subscriptions loaded from {}", current.size(), count, file);
+    }
+
+    // Keeps only the views that still match their subscription row
+    private Map<Long, SubscriptionView> revalidate(Map<Long, SubscriptionView> views) {
+        Map<Long, SubscriptionView> current = new HashMap<>(Math.max(16, views.size() * 4 / 3));
+        for (Map.Entry<Integer, List<Long>> shard : shardRouter.groupByShard(views.keySet()).entrySet()) {
+            List<Long> userIds = shard.getValue();
+            for (int from = 0; from < userIds.size(); from += REVALIDATE_CHUNK) {
+                List<Long> chunk = userIds.subList(from, Math.min(from + REVALIDATE_CHUNK, userIds.size()));
+                ShardContext.runOn(shard.getKey(), () -> namedParameterJdbcTemplate.query(SUBSCRIPTIONS_SQL,
+                        Map.of("userIds", chunk), rs -> {
+                            long userId = rs.getLong("user_id");
+                            SubscriptionView view = views.get(userId);
+                            if (view != null && view.subscriptionId() == rs.getLong("id")
+                                    && view.planId() == rs.getLong("plan_id")
+                                    && view.startDate().equals(rs.getObject("start_date", LocalDate.class))
+                                    && view.endDate().equals(rs.getObject("end_date", LocalDate.class))
+                                    && view.status().name().equals(rs.getString("status"))
+                                    && view.autoRenew() == rs.getBoolean("auto_renew")
+                                    && Objects.equals(view.pendingPlanId(), rs.getObject("pending_plan_id", Long.class))) {
+                                current.put(userId, view);
+                            }
+                        }));
+            }
+        }
+        return current;
+    }
+
+    private void installCatalog(byte[] catalogBytes) {
+        ByteBuffer in = ByteBuffer.wrap(catalogBytes);
+        Map<Long, Tier> tiersById = new HashMap<>();
+        int tierCount = in.getInt();
+        for (int i = 0; i < tierCount; i++) {
+            long id = in.getLong();
+            String name = readString(in);
+            int minOrders = in.getInt();
+            double minSpent = in.getDouble();
+            String cohort = readString(in);
+            Map<String, String> benefits = new HashMap<>();
+            int benefitCount = in.getInt();
+            for (int b = 0; b < benefitCount; b++) {
+                benefits.put(readString(in), readString(in));
+            }
+            tiersById.put(id, new Tier(id, name, minOrders, minSpent, cohort, benefits));
+        }
+        List<Plan> plans = new ArrayList<>();
+        int planCount = in.getInt();
+        for (int i = 0; i < planCount; i++) {
+            long id = in.getLong();
+            Tier tier = tiersById.get(in.getLong());
+            MembershipDuration duration = MembershipDuration.valueOf(readString(in));
+            plans.add(new Plan(id, tier, duration, new BigDecimal(readString(in))));
+        }
+        planCatalog.install(tierCatalog.install(tiersById.values()), plans);
+
+        // The file may predate catalog edits; drop it if the database disagrees
+        CompletableFuture.runAsync(() -> {
+            byte[] current = encodeCatalog(tierRepository.findAll(), planRepository.findAll());
+            if (!Arrays.equals(current, catalogBytes)) {
+                log.info("Catalog changed since the warm-start snapshot was written, rebuilding");
+                tierCatalog.invalidate();
+                planCatalog.invalidate();
+            }
+        }).exceptionally(e -> {
+            log.warn("Could not verify the warm-start catalog, rebuilding", e);
+            tierCatalog.invalidate();
+            planCatalog.invalidate();
+            return null;
+        });
+    }
+
+    // Deterministic: tiers and plans by id, benefits by key
+    private static byte[] encodeCatalog(Collection<Tier> tiers, Collection<Plan> plans) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            List<Tier> sortedTiers = new ArrayList<>(tiers);
+            sortedTiers.sort(Comparator.comparing(Tier::getId));
+            out.writeInt(sortedTiers.size());
+            for (Tier tier : sortedTiers) {
+                out.writeLong(tier.getId());
+                writeString(out, tier.getName());
+                out.writeInt(tier.getMinOrderCount());
+                out.writeDouble(tier.getMinTotalSpent());
+                writeString(out, tier.getRequiredCohort());
+                Map<String, String> benefits = new TreeMap<>(tier.getBenefits() == null ? Map.of() : tier.getBenefits());
+                out.writeInt(benefits.size());
+                for (Map.Entry<String, String> benefit : benefits.entrySet()) {
+                    writeString(out, benefit.getKey());
+                    writeString(out, benefit.getValue());
+                }
+            }
+            List<Plan> sortedPlans = new ArrayList<>(plans);
+            sortedPlans.sort(Comparator.comparing(Plan::getId));
+            out.writeInt(sortedPlans.size());
+            for (Plan plan : sortedPlans) {
+                out.writeLong(plan.getId());
+                out.writeLong(plan.getTier().getId());
+                writeString(out, plan.getDuration().name());
+                writeString(out, plan.getPrice().toPlainString());
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to encode catalog", e);
+        }
+    }
+
+    private static void writeView(DataOutputStream out, SubscriptionView view) throws IOException {
+        out.writeLong(view.subscriptionId());
+        out.writeLong(view.userId());
+        out.writeLong(view.planId());
+        writeString(out, view.planName());
+        out.writeLong(view.tierId());
+        writeString(out, view.tierName());
+        out.writeLong(view.startDate().toEpochDay());
+        out.writeLong(view.endDate().toEpochDay());
+        writeString(out, view.status().name());
+        out.writeBoolean(view.autoRenew());
+        out.writeLong(view.pendingPlanId() == null ? -1 : view.pendingPlanId());
+    }
+
+    private static SubscriptionView readView(ByteBuffer in) {
+        long subscriptionId = in.getLong();
+        long userId = in.getLong();
+        long planId = in.getLong();
+        String planName = readString(in);
+        long tierId = in.getLong();
+        String tierName = readString(in);
+        LocalDate startDate = LocalDate.ofEpochDay(in.getLong());
+        LocalDate endDate = LocalDate.ofEpochDay(in.getLong());
+        SubscriptionStatus status = SubscriptionStatus.valueOf(readString(in));
+        boolean autoRenew = in.get() != 0;
+        long pendingPlanId = in.getLong();
+        return new SubscriptionView(subscriptionId, userId, planId, planName, tierId, tierName, startDate, endDate,
+                status, autoRenew, pendingPlanId < 0 ? null : pendingPlanId);
+    }
+
+    // Length-prefixed UTF-8, -1 for null
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,101 @@
+package com.firstclub.membership.shard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Maps users to shards and runs scatter-gather work over all shards. With
+ * sharding disabled there is exactly one shard and everything routes to it.
+ * <p>
+ * User ids are minted per shard from {@code users_seq}, which on shard {@code i}
+ * of {@code n} starts at {@code i + 1} and steps by {@code n}. The residue of the
+ * id is therefore the routing hash and never changes once the user exists.
+ */
+@Component
+public class ShardRouter {
+
+    private final List<String> urls;
+    private final int shardCount;
+    private final AtomicInteger nextNewUserShard = new AtomicInteger();
+    private final ExecutorService scatterPool;
+
+    public ShardRouter(@Value("${membership.sharding.enabled:false}") boolean enabled,
+            @Value("${membership.sharding.urls:}") String urls) {
+        this.urls = enabled ? Arrays.stream(urls.split(",")).map(String::trim).filter(u -> !u.isEmpty()).toList()
+                : List.of();
+        if (enabled && this.urls.isEmpty()) {
+            throw new RuntimeException("membership.sharding.urls must list at least one datasource");
+        }
+        this.shardCount = enabled ? this.urls.size() : 1;
+        this.scatterPool = shardCount > 1 ? Executors.newFixedThreadPool(shardCount) : null;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * JDBC urls of the shards, in shard order. Empty when sharding is disabled.
+     */
+    public List<String> getUrls() {
+        return urls;
+    }
+
+    public int shardFor(long userId) {
+        return (int) Math.floorMod(userId - 1, (long) shardCount);
+    }
+
+    /**
+     * Shard to create the next new user on (round robin).
+     */
+    public int shardForNewUser() {
+        return Math.floorMod(nextNewUserShard.getAndIncrement(), shardCount);
+    }
+
+    public Map<Integer, List<Long>> groupByShard(Collection<Long> userIds) {
+        Map<Integer, List<Long>> byShard = new HashMap<>();
+        for (Long userId : userIds) {
+            byShard.computeIfAbsent(shardFor(userId), s -> new ArrayList<>()).add(userId);
+        }
+        return byShard;
+    }
+
+    /**
+     * Scatter-gather: runs {@code work} once per shard, routed to that shard, in
+     * parallel when there are several. Results are returned in shard order and
+     * may be null.
+     */
+    public <T> List<T> onEachShard(IntFunction<T> work) {
+        if (shardCount == 1) {
+            return Collections.singletonList(ShardContext.callOn(0, () -> work.apply(0)));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int s = shard;
+            futures.add(CompletableFuture.supplyAsync(() -> ShardContext.callOn(s, () -> work.apply(s)), scatterPool));
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scatterPool != null) {
+            scatterPool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.firstclub.membership.shard;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.firstclub.membership.model.User;
+
+/**
+ * Routes {@link RoutedByUser} methods to the user's shard and new users to a
+ * round robin shard. Ordered ahead of the
+ * transaction advice so the transaction's connection comes from that shard, but
+ * after Spring's ExposeInvocationInterceptor (HIGHEST_PRECEDENCE + 1), which has
+ * to run first for the userId argument to be bound.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@ConditionalOnProperty(name = "membership.sharding.enabled", havingValue = "true")
+public class ShardRoutingAspect {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Around("@annotation(com.firstclub.membership.shard.RoutedByUser) && args(userId, ..)")
+    public Object route(ProceedingJoinPoint joinPoint, Long userId) throws Throwable {
+        if (userId == null) {
+            return joinPoint.proceed();
+        }
+        Integer previous = ShardContext.enter(shardRouter.shardFor(userId));
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    /**
+     * Spreads new users over the shards: a user saved without an id, outside a
+     * transaction and with no shard chosen by the caller goes to
+     * {@link ShardRouter#shardForNewUser()}, and takes its id from that shard's sequence.
+     */
+    @Around("execution(* save(..)) && this(com.firstclub.membership.repository.UserRepository) && args(user)")
+    public Object routeNewUser(ProceedingJoinPoint joinPoint, User user) throws Throwable {
+        if (user == null || user.getId() != null || ShardContext.current() != null
+                || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        Integer previous = ShardContext.enter(shardRouter.shardForNewUser());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.firstclub.membership.shard;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Prepares every shard at startup. Hibernate's ddl-auto only reaches shard 0, so
+ * the mapped schema is created where it is missing and, with ddl-auto=update,
+ * the same update is applied to the other shards. On shards without users yet
+ * {@code users_seq} is set to start at {@code shard + 1} and step by the shard count.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "membership.sharding.enabled", havingValue = "true")
+public class ShardSchemaInitializer implements InitializingBean {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private ShardRouter shardRouter;
+    @Autowired
+    private ShardSchemaMetadata shardSchemaMetadata;
+
+    @Override
+    public void afterPropertiesSet() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        Map<String, Object> settings = sessionFactory.getProperties();
+        boolean update = "update".equals(settings.get(AvailableSettings.HBM2DDL_AUTO));
+        int shardCount = shardRouter.getShardCount();
+        for (int shard = 0; shard < shardCount; shard++) {
+            int s = shard;
+            ShardContext.runOn(shard, () -> {
+                if (!usersTableExists()) {
+                    log.info("Creating schema on shard {}", s);
+                    sessionFactory.getSchemaManager().exportMappedObjects(true);
+                } else if (s > 0 && update) {
+                    updateSchema(settings);
+                }
+                Long users = jdbcTemplate.queryForObject("select count(*) from users", Long.class);
+                if (users != null && users == 0) {
+                    jdbcTemplate.execute("alter sequence users_seq restart with " + (s + 1)
+                            + " increment by " + shardCount);
+                }
+            });
+        }
+    }
+
+    /**
+     * Runs Hibernate's schema update against the current shard. It gets a service
+     * registry of its own because the application's one has shard 0's catalog
+     * name, and would look for the existing tables there.
+     */
+    private void updateSchema(Map<String, Object> settings) {
+        Map<String, Object> shardSettings = new HashMap<>(settings);
+        shardSettings.put(AvailableSettings.DATASOURCE, dataSource);
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder().applySettings(shardSettings).build();
+        try {
+            // Nothing to drop on close: the action is update
+            SchemaManagementToolCoordinator.process(shardSchemaMetadata.get(), registry, shardSettings, action -> {
+            });
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+        }
+    }
+
+    // Schema filter: H2 also has an INFORMATION_SCHEMA.USERS system table
+    private boolean usersTableExists() {
+        Long tables = jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.tables where table_schema = 'PUBLIC'"
+                        + " and upper(table_name) = 'USERS'", Long.class);
+        return tables != null && tables > 0;
+    }
+}
@@ -0,0 +1,45 @@
+package com.firstclub.membership.shard;
+
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the mapping metadata Hibernate builds at startup, so
+ * {@link ShardSchemaInitializer} can run the same schema update on the other
+ * shards that ddl-auto runs on shard 0.
+ */
+@Component
+@ConditionalOnProperty(name = "membership.sharding.enabled", havingValue = "true")
+public class ShardSchemaMetadata implements HibernatePropertiesCustomizer, Integrator {
+
+    private volatile Metadata metadata;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put("hibernate.integrator_provider", (IntegratorProvider) () -> List.of(this));
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+            SessionFactoryImplementor sessionFactory) {
+        this.metadata = metadata;
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    public Metadata get() {
+        return metadata;
+    }
+}
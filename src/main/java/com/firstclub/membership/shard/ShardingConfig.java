@@ -0,0 +1,61 @@
+package com.firstclub.membership.shard;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Replaces the single datasource with one pool per shard behind a
+ * {@link ShardRoutingDataSource}. The lazy proxy defers picking the shard from
+ * transaction begin to the first statement.
+ */
+@Configuration
+@ConditionalOnProperty(name = "membership.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    private final List<HikariDataSource> shards = new ArrayList<>();
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRouter shardRouter, DataSourceProperties properties,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        Map<Object, Object> targets = new HashMap<>();
+        List<String> urls = shardRouter.getUrls();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource shard = new HikariDataSource();
+            shard.setPoolName("shard-" + i);
+            shard.setJdbcUrl(urls.get(i));
+            shard.setUsername(properties.getUsername());
+            shard.setPassword(properties.getPassword());
+            shard.setDriverClassName(properties.getDriverClassName());
+            shard.setMaximumPoolSize(poolSize);
+            shards.add(shard);
+            targets.put(i, shard);
+        }
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(targets.get(0));
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @PreDestroy
+    public void close() {
+        shards.forEach(HikariDataSource::close);
+    }
+}
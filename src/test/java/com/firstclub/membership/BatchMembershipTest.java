@@ -0,0 +1,88 @@
+package com.firstclub.membership;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.firstclub.membership.dto.BatchOperation;
+import com.firstclub.membership.dto.BatchOperation.Type;
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.MembershipService;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-test",
+        "membership.batch.max-operations=10"
+})
+@AutoConfigureMockMvc
+public class BatchMembershipTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MembershipService membershipService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void mixedOperationsReportOneResultEach() throws Exception {
+        Long first = userRepository.save(new User(null, "Batch One", "batch-1@test.com", 0, 0.0, 0L)).getId();
+        Long second = userRepository.save(new User(null, "Batch Two", "batch-2@test.com", 0, 0.0, 0L)).getId();
+        Long planId = membershipService.getAvailablePlans(first).get(0).getId();
+
+        List<BatchOperation> operations = new ArrayList<>();
+        operations.add(new BatchOperation(Type.SUBSCRIBE, first, planId));
+        operations.add(new BatchOperation(Type.SUBSCRIBE, second, planId));
+        operations.add(new BatchOperation(Type.CANCEL, second, null));
+        operations.add(new BatchOperation(Type.CANCEL, 999_999L, null));
+        operations.add(new BatchOperation(Type.SUBSCRIBE, 999_999L, planId));
+        operations.add(new BatchOperation(Type.SUBSCRIBE, first, 999_999L));
+        operations.add(new BatchOperation(null, first, planId));
+
+        mockMvc.perform(post("/api/membership/batch").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsBytes(operations)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(7))
+                .andExpect(jsonPath("$[0].success").value(true))
+                .andExpect(jsonPath("$[1].success").value(true))
+                .andExpect(jsonPath("$[2].success").value(true))
+                .andExpect(jsonPath("$[3].error").value("No subscription found"))
+                .andExpect(jsonPath("$[4].error").value("User not found"))
+                .andExpect(jsonPath("$[5].error").value("Plan not found"))
+                .andExpect(jsonPath("$[6].error").value("Invalid operation"))
+                .andExpect(jsonPath("$[6].index").value(6));
+
+        Assertions.assertEquals(SubscriptionStatus.ACTIVE, membershipService.getCurrentSubscription(first).status());
+        Assertions.assertEquals(SubscriptionStatus.CANCELLED,
+                membershipService.getCurrentSubscription(second).status());
+    }
+
+    @Test
+    void oversizedBatchIsAClientError() throws Exception {
+        List<BatchOperation> operations = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            operations.add(new BatchOperation(Type.CANCEL, 1L, null));
+        }
+        mockMvc.perform(post("/api/membership/batch").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsBytes(operations)))
+                .andExpect(status().isPayloadTooLarge());
+    }
+}
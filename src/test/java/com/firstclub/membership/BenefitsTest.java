@@ -0,0 +1,58 @@
+package com.firstclub.membership;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.firstclub.membership.dto.Benefits;
+import com.firstclub.membership.model.DeliveryClass;
+import com.firstclub.membership.model.MembershipDuration;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.SupportPriority;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.MembershipService;
+
+@SpringBootTest
+public class BenefitsTest {
+
+    @Autowired
+    private MembershipService membershipService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void benefitsFollowTheActiveSubscription() {
+        Long userId = userRepository.save(new User(null, "Benefits User", "benefits@test.com", 60, 2500.0, 0L))
+                .getId();
+        Assertions.assertSame(Benefits.NONE, membershipService.resolveBenefits(userId));
+
+        membershipService.subscribe(userId, monthlyPlan(userId, "Gold"));
+        Benefits gold = membershipService.resolveBenefits(userId);
+        Assertions.assertEquals("Gold", gold.tierName());
+        Assertions.assertEquals(1000, gold.discountBasisPoints());
+        Assertions.assertEquals(DeliveryClass.FREE_ON_ELIGIBLE, gold.delivery());
+        Assertions.assertEquals(100, gold.discountCents(1000));
+
+        membershipService.subscribe(userId, monthlyPlan(userId, "Platinum"));
+        Benefits platinum = membershipService.resolveBenefits(userId);
+        Assertions.assertEquals(2000, platinum.discountBasisPoints());
+        Assertions.assertEquals(DeliveryClass.FREE_ALL, platinum.delivery());
+        Assertions.assertEquals(SupportPriority.PRIORITY, platinum.support());
+        // Answered from the caches: the same instance every time
+        Assertions.assertSame(platinum, membershipService.resolveBenefits(userId));
+
+        membershipService.cancelSubscription(userId);
+        Assertions.assertSame(Benefits.NONE, membershipService.resolveBenefits(userId));
+    }
+
+    private Long monthlyPlan(Long userId, String tier) {
+        return membershipService.getAvailablePlans(userId).stream()
+                .filter(p -> p.getTier().getName().equals(tier) && p.getDuration() == MembershipDuration.MONTHLY)
+                .map(Plan::getId)
+                .findFirst()
+                .orElseThrow();
+    }
+}
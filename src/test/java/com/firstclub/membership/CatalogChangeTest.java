@@ -0,0 +1,98 @@
+package com.firstclub.membership;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.firstclub.membership.model.CatalogChange;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.CatalogChangeLog;
+import com.firstclub.membership.service.CatalogChangePoller;
+import com.firstclub.membership.service.MembershipService;
+import com.firstclub.membership.service.PlanCatalog;
+import com.firstclub.membership.service.TierCatalog;
+import com.firstclub.membership.service.TierSnapshot;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:catalog-change-test",
+        "membership.catalog.poll-interval-ms=3600000"
+})
+public class CatalogChangeTest {
+
+    @Autowired
+    private CatalogChangePoller poller;
+
+    @Autowired
+    private CatalogChangeLog catalogChangeLog;
+
+    @Autowired
+    private TierCatalog tierCatalog;
+
+    @Autowired
+    private PlanCatalog planCatalog;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MembershipService membershipService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void planEditedByAnotherNodeIsPickedUpWithoutRebuildingTiers() {
+        poller.poll();
+        Plan plan = planCatalog.snapshot().plans().iterator().next();
+        BigDecimal newPrice = plan.getPrice().add(new BigDecimal("1.00"));
+        TierSnapshot tiers = tierCatalog.snapshot();
+        long before = poller.version().appliedVersion();
+
+        // Another node: the row and its change-log entry, in one transaction
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("update plan set price = ? where id = ?", newPrice, plan.getId());
+            catalogChangeLog.record(CatalogChange.PLAN, plan.getId());
+        });
+        Assertions.assertEquals(0, plan.getPrice().compareTo(planCatalog.snapshot().plan(plan.getId()).getPrice()),
+                "Not visible before the poll");
+
+        Assertions.assertEquals(1, poller.poll());
+        Assertions.assertEquals(0, newPrice.compareTo(planCatalog.snapshot().plan(plan.getId()).getPrice()));
+        Assertions.assertSame(tiers, tierCatalog.snapshot());
+        Assertions.assertEquals(before + 1, poller.version().appliedVersion());
+        Assertions.assertEquals(0, poller.poll());
+    }
+
+    @Test
+    void subscriptionCancelledByAnotherNodeIsEvictedOnThePoll() {
+        Long userId = userRepository.save(new User(null, "Coherent User", "coherent@test.com", 0, 0.0, 0L)).getId();
+        membershipService.subscribe(userId, membershipService.getAvailablePlans(userId).get(0).getId());
+        poller.poll();
+        Assertions.assertEquals(SubscriptionStatus.ACTIVE, membershipService.getCurrentSubscription(userId).status());
+
+        // Another node cancels: the row and its invalidation entry, in one transaction
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("update subscription set status = 'CANCELLED' where user_id = ?", userId);
+            jdbcTemplate.update("insert into subscription_invalidation (id, user_id, node_id, changed_at)"
+                    + " values (next value for subscription_invalidation_seq, ?, 'other-node', localtimestamp)",
+                    userId);
+        });
+        Assertions.assertEquals(SubscriptionStatus.ACTIVE, membershipService.getCurrentSubscription(userId).status(),
+                "Served from this node's cache until the poll");
+
+        poller.poll();
+        Assertions.assertEquals(SubscriptionStatus.CANCELLED,
+                membershipService.getCurrentSubscription(userId).status());
+    }
+}
@@ -0,0 +1,79 @@
+package com.firstclub.membership;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.firstclub.membership.dto.CohortUpdateResult;
+import com.firstclub.membership.model.Tier;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.TierRepository;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.CohortDictionary;
+import com.firstclub.membership.service.CohortService;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:cohort-test")
+public class CohortTest {
+
+    @Autowired
+    private CohortService cohortService;
+
+    @Autowired
+    private CohortDictionary cohortDictionary;
+
+    @Autowired
+    private TierRepository tierRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void bulkAssignmentMovesOnlyAffectedUsersIntoTheCohortTier() {
+        Tier campaign = tierRepository.save(new Tier(null, "Campaign", 0, 100.0, "spring_sale", Map.of()));
+        Long first = userRepository.save(new User(null, "Cohort One", "cohort-1@test.com", 1, 150.0, 0L)).getId();
+        Long second = userRepository.save(new User(null, "Cohort Two", "cohort-2@test.com", 1, 150.0, 0L)).getId();
+        cohortService.assign("vip", List.of(first));
+
+        CohortUpdateResult assigned = cohortService.assign("Spring_Sale", List.of(first, second, first));
+        Assertions.assertEquals(2, assigned.changed());
+        Assertions.assertEquals(2, assigned.tierChanged());
+        Assertions.assertEquals(campaign.getId(), userRepository.findById(first).orElseThrow().getCurrentTierId());
+        Assertions.assertEquals(List.of("VIP", "SPRING_SALE"),
+                cohortDictionary.namesOf(userRepository.findById(first).orElseThrow().getCohortMask()));
+
+        // Already members: nothing to do
+        Assertions.assertEquals(0, cohortService.assign("SPRING_SALE", List.of(first, second)).changed());
+
+        CohortUpdateResult removed = cohortService.remove("spring_sale", List.of(first));
+        Assertions.assertEquals(1, removed.changed());
+        User afterRemoval = userRepository.findById(first).orElseThrow();
+        Assertions.assertEquals(List.of("VIP"), cohortDictionary.namesOf(afterRemoval.getCohortMask()));
+        Assertions.assertNotEquals(campaign.getId(), afterRemoval.getCurrentTierId());
+        Assertions.assertEquals(campaign.getId(), userRepository.findById(second).orElseThrow().getCurrentTierId());
+    }
+
+    @Test
+    void cohortCreatedByAnotherNodeIsNeitherOverwrittenNorDuplicated() {
+        cohortDictionary.intern("local");
+        long used = cohortDictionary.all().values().stream().mapToLong(id -> 1L << id).reduce(0L, (a, b) -> a | b);
+        int freeBit = Long.numberOfTrailingZeros(~used);
+        // Another node interned a cohort at the next free bit; this node has not seen it
+        jdbcTemplate.update("insert into cohort (id, name) values (?, ?)", freeBit, "REMOTE");
+
+        int newBit = cohortDictionary.intern("newcomer");
+        Assertions.assertNotEquals(freeBit, newBit);
+        Assertions.assertEquals("REMOTE", jdbcTemplate.queryForObject("select name from cohort where id = ?",
+                String.class, freeBit));
+        Assertions.assertEquals(freeBit, cohortDictionary.intern("remote"));
+        Assertions.assertEquals(List.of("REMOTE", "NEWCOMER"),
+                cohortDictionary.namesOf((1L << freeBit) | (1L << newBit)));
+    }
+}
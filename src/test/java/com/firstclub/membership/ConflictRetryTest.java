@@ -0,0 +1,87 @@
+package com.firstclub.membership;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.MembershipService;
+import com.firstclub.membership.service.SubscriptionCache;
+import com.firstclub.membership.service.UserLocks;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:conflict-retry-test",
+        "membership.conflict-retry.initial-backoff-ms=400",
+        "membership.conflict-retry.max-backoff-ms=400"
+})
+public class ConflictRetryTest {
+
+    @Autowired
+    private MembershipService membershipService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserLocks userLocks;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @SpyBean
+    private SubscriptionCache subscriptionCache;
+
+    @Test
+    void staleVersionIsRetriedWithoutHoldingTheUserLock() throws Exception {
+        Long userId = userRepository.save(new User(null, "Conflict User", "conflict@test.com", 0, 0.0, 0L)).getId();
+        Plan plan = membershipService.getAvailablePlans(userId).get(0);
+        membershipService.subscribe(userId, plan.getId());
+        membershipService.setAutoRenew(userId, false);
+        double retriesBefore = meterRegistry.counter("membership.conflict.retries").count();
+
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicBoolean lockTakenBeforeRetry = new AtomicBoolean();
+        CountDownLatch otherLocked = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            // Called inside each attempt's transaction, before the flush at commit
+            if (attempts.incrementAndGet() == 1) {
+                // Someone else committed a change: the flush of this attempt finds a stale version
+                jdbcTemplate.update("update subscription set version = version + 1 where user_id = ?", userId);
+                new Thread(() -> userLocks.withLock(userId, () -> {
+                    otherLocked.countDown();
+                    return null;
+                })).start();
+            } else {
+                lockTakenBeforeRetry.set(otherLocked.getCount() == 0);
+            }
+            return invocation.callRealMethod();
+        }).when(subscriptionCache).writeThroughAfterCommit(eq(userId), any());
+
+        membershipService.setAutoRenew(userId, true);
+
+        Assertions.assertEquals(2, attempts.get());
+        Assertions.assertEquals(retriesBefore + 1, meterRegistry.counter("membership.conflict.retries").count());
+        Assertions.assertTrue(lockTakenBeforeRetry.get(), "user lock was held while backing off");
+        Assertions.assertTrue(otherLocked.await(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(membershipService.getCurrentSubscription(userId).autoRenew());
+    }
+}
@@ -0,0 +1,79 @@
+package com.firstclub.membership;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.firstclub.membership.dto.SubscriptionView;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.SubscriptionRepository;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.MembershipService;
+
+@SpringBootTest
+public class IdempotencyTest {
+
+    @Autowired
+    private MembershipService membershipService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Test
+    void repeatedKeyReturnsTheFirstResponse() {
+        Long userId = userRepository.save(new User(null, "Retry User", "idem@test.com", 0, 0.0, 0L)).getId();
+        List<Plan> plans = membershipService.getAvailablePlans(userId);
+
+        SubscriptionView first = membershipService.subscribe(userId, plans.get(0).getId(), "key-1");
+        SubscriptionView retried = membershipService.subscribe(userId, plans.get(0).getId(), "key-1");
+        Assertions.assertEquals(first, retried);
+
+        // Same key with other parameters is rejected rather than replayed
+        ResponseStatusException reused = Assertions.assertThrows(ResponseStatusException.class,
+                () -> membershipService.subscribe(userId, plans.get(1).getId(), "key-1"));
+        Assertions.assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, reused.getStatusCode());
+
+        membershipService.cancelSubscription(userId, "key-2");
+        membershipService.cancelSubscription(userId, "key-2");
+        Assertions.assertEquals(SubscriptionStatus.CANCELLED, membershipService.getCurrentSubscription(userId).status());
+    }
+
+    @Test
+    void concurrentFirstSubscribesForOneUserAllSucceed() throws Exception {
+        Long userId = userRepository.save(new User(null, "Racing User", "race@test.com", 0, 0.0, 0L)).getId();
+        Long planId = membershipService.getAvailablePlans(userId).get(0).getId();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<SubscriptionView>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(pool.submit(() -> SubscriptionView.of(membershipService.subscribe(userId, planId))));
+            }
+            Long subscriptionId = null;
+            for (Future<SubscriptionView> future : futures) {
+                SubscriptionView view = future.get();
+                if (subscriptionId == null) {
+                    subscriptionId = view.subscriptionId();
+                }
+                Assertions.assertEquals(subscriptionId, view.subscriptionId());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        Assertions.assertTrue(subscriptionRepository.findByUser(userRepository.getReferenceById(userId)).isPresent());
+    }
+}
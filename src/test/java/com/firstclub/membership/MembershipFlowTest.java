@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import com.firstclub.membership.dto.SubscriptionView;
 import com.firstclub.membership.model.MembershipDuration;
 import com.firstclub.membership.model.Plan;
 import com.firstclub.membership.model.Subscription;
@@ -27,7 +28,7 @@ public class MembershipFlowTest {
     @Test
     void testFullMembershipFlow() {
         // 1. Create User
-        User user = new User(null, "Test User", "test@test.com", 0, 0.0, null);
+        User user = new User(null, "Test User", "test@test.com", 0, 0.0, 0L);
         user = userRepository.save(user);
         Long userId = user.getId();
 
@@ -71,7 +72,7 @@ public class MembershipFlowTest {
 
         // 7. Cancel
         membershipService.cancelSubscription(userId);
-        Subscription cancelled = membershipService.getCurrentSubscription(userId);
-        Assertions.assertEquals(SubscriptionStatus.CANCELLED, cancelled.getStatus());
+        SubscriptionView cancelled = membershipService.getCurrentSubscription(userId);
+        Assertions.assertEquals(SubscriptionStatus.CANCELLED, cancelled.status());
     }
 }
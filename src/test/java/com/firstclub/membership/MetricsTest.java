@@ -0,0 +1,78 @@
+package com.firstclub.membership;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.firstclub.membership.config.SqlStatementCounter;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.MembershipService;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:metrics-test")
+@AutoConfigureMockMvc
+public class MetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MembershipService membershipService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void eligibilityIsTimedWhenSubscribing() throws Exception {
+        String userId = userRepository.save(new User(null, "Timed User", "timed@test.com", 0, 0.0, 0L)).getId()
+                .toString();
+        String planId = membershipService.getAvailablePlans(Long.valueOf(userId)).get(0).getId().toString();
+        Timer timer = meterRegistry.find("membership.eligibility.checks").timer();
+        Assertions.assertNotNull(timer);
+        long before = timer.count();
+
+        mockMvc.perform(post("/api/membership/subscribe").param("userId", userId).param("planId", planId))
+                .andExpect(status().isOk());
+        Assertions.assertTrue(timer.count() > before);
+    }
+
+    @Test
+    void statementsAreCountedPerRequest() throws Exception {
+        String userId = userRepository.save(new User(null, "Counted User", "counted@test.com", 0, 0.0, 0L)).getId()
+                .toString();
+
+        mockMvc.perform(get("/api/membership/current/" + userId)).andExpect(status().isOk());
+        DistributionSummary summary = meterRegistry.find("membership.sql.statements")
+                .tag("uri", "/api/membership/current/{userId}").summary();
+        Assertions.assertNotNull(summary);
+        Assertions.assertEquals(1, summary.count());
+        // Cache miss: the subscription lookup ran
+        Assertions.assertTrue(summary.totalAmount() >= 1);
+    }
+
+    @Test
+    void jdbcTemplateStatementsAreCounted() {
+        SqlStatementCounter.reset();
+        jdbcTemplate.queryForObject("select count(*) from users", Long.class);
+        jdbcTemplate.update("update users set total_orders = total_orders where id = -1");
+        Assertions.assertEquals(2, SqlStatementCounter.current());
+    }
+}
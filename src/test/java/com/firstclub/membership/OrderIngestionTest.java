@@ -0,0 +1,101 @@
+package com.firstclub.membership;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.OrderIngestionService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest
+public class OrderIngestionTest {
+
+    @Autowired
+    private OrderIngestionService orderIngestionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentOrdersAreNotLost() throws Exception {
+        User user = userRepository.save(new User(null, "Order User", "orders@test.com", 0, 0.0, 0L));
+        Long userId = user.getId();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 250; i++) {
+                        orderIngestionService.record(userId, 2.0);
+                        if (i % 50 == 0) {
+                            orderIngestionService.flush(); // flush while others keep recording
+                        }
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        orderIngestionService.flush();
+
+        User updated = userRepository.findById(userId).orElseThrow();
+        Assertions.assertEquals(2000, updated.getTotalOrders());
+        Assertions.assertEquals(4000.0, updated.getTotalSpent(), 0.0001);
+    }
+
+    @Test
+    void ordersForUnknownUsersAreRejected() {
+        ResponseStatusException e = Assertions.assertThrows(ResponseStatusException.class,
+                () -> orderIngestionService.record(987_654_321L, 5.0));
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+    }
+
+    @Test
+    void amountsThatAreNotFiniteOrNegativeAreRejected() {
+        Long userId = userRepository.save(new User(null, "Odd Amounts", "odd-amounts@test.com", 0, 0.0, 0L)).getId();
+        for (double amount : new double[] { Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, -1.0 }) {
+            ResponseStatusException e = Assertions.assertThrows(ResponseStatusException.class,
+                    () -> orderIngestionService.record(userId, amount));
+            Assertions.assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+        orderIngestionService.flush();
+        Assertions.assertEquals(0.0, userRepository.findById(userId).orElseThrow().getTotalSpent());
+    }
+
+    @Test
+    void ordersOfADeletedUserAreCountedAsDropped() {
+        Long userId = userRepository.save(new User(null, "Deleted User", "deleted@test.com", 0, 0.0, 0L)).getId();
+        orderIngestionService.flush();
+        double droppedBefore = meterRegistry.counter("membership.orders.dropped").count();
+
+        orderIngestionService.record(userId, 3.0);
+        orderIngestionService.record(userId, 4.0);
+        jdbcTemplate.update("delete from users where id = ?", userId);
+
+        Assertions.assertEquals(0, orderIngestionService.flush());
+        Assertions.assertEquals(droppedBefore + 2, meterRegistry.counter("membership.orders.dropped").count());
+    }
+}
@@ -0,0 +1,118 @@
+package com.firstclub.membership;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.firstclub.membership.event.OutboxMessage;
+import com.firstclub.membership.event.OutboxPublisher;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.SubscriptionEventType;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.MembershipService;
+import com.firstclub.membership.service.OutboxRelay;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox-test",
+        "membership.outbox.publisher=file",
+        "membership.outbox.file=target/outbox-test.ndjson",
+        "membership.outbox.poll-interval-ms=3600000",
+        "membership.outbox.batch-size=2"
+})
+public class OutboxTest {
+
+    @Autowired
+    private MembershipService membershipService;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @SpyBean
+    private OutboxPublisher outboxPublisher;
+
+    @BeforeAll
+    static void resetFile() throws Exception {
+        // The in-memory database restarts with the same ids, the file does not
+        Files.deleteIfExists(Path.of("target/outbox-test.ndjson"));
+    }
+
+    @Test
+    void changesAreRelayedInOrderAndRemoved() throws Exception {
+        Long userId = userRepository.save(new User(null, "Outbox User", "outbox@test.com", 0, 0.0, 0L)).getId();
+        List<Plan> plans = membershipService.getAvailablePlans(userId);
+
+        membershipService.subscribe(userId, plans.get(0).getId());
+        membershipService.subscribe(userId, plans.get(1).getId()); // other duration, same tier
+        membershipService.subscribe(userId, plans.get(1).getId()); // unchanged, no event
+        membershipService.cancelSubscription(userId);
+        outboxRelay.relay();
+
+        Assertions.assertEquals(List.of(SubscriptionEventType.SUBSCRIBED, SubscriptionEventType.PLAN_CHANGED,
+                SubscriptionEventType.CANCELLED), publishedTypes(userId));
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from outbox_event where user_id = ?", Long.class, userId));
+    }
+
+    @Test
+    void failedBatchIsRetriedBeforeLaterChanges() throws Exception {
+        Long userId = userRepository.save(new User(null, "Retry User", "outbox-retry@test.com", 0, 0.0, 0L)).getId();
+        List<Plan> plans = membershipService.getAvailablePlans(userId);
+        membershipService.subscribe(userId, plans.get(0).getId());
+        membershipService.subscribe(userId, plans.get(1).getId());
+        membershipService.cancelSubscription(userId);
+
+        // The first batch (of two) is rejected; the cancel sits in the next batch
+        doThrow(new RuntimeException("downstream unavailable")).doCallRealMethod()
+                .when(outboxPublisher).publish(any());
+        Assertions.assertEquals(0, outboxRelay.relay());
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from outbox_event where user_id = ? and claimed_by is not null", Long.class,
+                userId));
+
+        outboxRelay.relay();
+        Assertions.assertEquals(List.of(SubscriptionEventType.SUBSCRIBED, SubscriptionEventType.PLAN_CHANGED,
+                SubscriptionEventType.CANCELLED), publishedTypes(userId));
+    }
+
+    private List<SubscriptionEventType> publishedTypes(Long userId) throws Exception {
+        Path file = Path.of("target/outbox-test.ndjson");
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        return Files.readAllLines(file).stream()
+                .map(line -> read(line))
+                .filter(m -> m.userId().equals(userId))
+                .map(OutboxMessage::type)
+                .toList();
+    }
+
+    private OutboxMessage read(String line) {
+        try {
+            return objectMapper.readValue(line, OutboxMessage.class);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.firstclub.membership;
+
+import static org.mockito.ArgumentMatchers.any;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.firstclub.membership.dto.PlanChangeQuote;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.PlanChangeKind;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.MembershipService;
+import com.firstclub.membership.service.SubscriptionCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:plan-change-quote-test")
+public class PlanChangeQuoteTest {
+
+    @Autowired
+    private MembershipService membershipService;
+
+    @Autowired
+    private SubscriptionCache subscriptionCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @SpyBean
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void quoteOnACacheMissOpensNoTransaction() {
+        Long userId = userRepository.save(new User(null, "Quote User", "quote@test.com", 0, 0.0, 0L)).getId();
+        List<Plan> plans = membershipService.getAvailablePlans(userId);
+        membershipService.subscribe(userId, plans.get(0).getId());
+        membershipService.quotePlanChange(userId, plans.get(1).getId()); // plan catalog loaded
+        subscriptionCache.invalidate(userId);
+        Mockito.clearInvocations(transactionManager);
+        long repositoryCalls = subscriptionRepositoryCalls();
+
+        PlanChangeQuote quote = membershipService.quotePlanChange(userId, plans.get(1).getId());
+        Assertions.assertNotEquals(PlanChangeKind.NONE, quote.kind());
+        Mockito.verify(transactionManager, Mockito.never()).getTransaction(any());
+        // Nor an EntityManager: the subscription is read with plain JDBC
+        Assertions.assertEquals(repositoryCalls, subscriptionRepositoryCalls());
+        // The reloaded subscription is cached again
+        Assertions.assertEquals(plans.get(0).getId(), membershipService.getCurrentSubscription(userId).planId());
+    }
+
+    private long subscriptionRepositoryCalls() {
+        return meterRegistry.find("spring.data.repository.invocations").tag("repository", "SubscriptionRepository")
+                .timers().stream().mapToLong(Timer::count).sum();
+    }
+}
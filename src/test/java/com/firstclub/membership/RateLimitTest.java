@@ -0,0 +1,58 @@
+package com.firstclub.membership;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rate-limit-test",
+        "membership.rate-limit.per-user-rate=0.01",
+        "membership.rate-limit.per-user-burst=2"
+})
+@AutoConfigureMockMvc
+public class RateLimitTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void requestsOverTheUserBucketAreShedWithRetryAfter() throws Exception {
+        String first = userRepository.save(new User(null, "Limited One", "limited-1@test.com", 0, 0.0, 0L)).getId()
+                .toString();
+        String second = userRepository.save(new User(null, "Limited Two", "limited-2@test.com", 0, 0.0, 0L)).getId()
+                .toString();
+        double shedBefore = meterRegistry.counter("membership.requests.shed", "reason", "rate").count();
+
+        mockMvc.perform(post("/api/membership/simulate-order").param("userId", first).param("amount", "10"))
+                .andExpect(status().isAccepted());
+        mockMvc.perform(post("/api/membership/simulate-order").param("userId", first).param("amount", "10"))
+                .andExpect(status().isAccepted());
+        mockMvc.perform(post("/api/membership/simulate-order").param("userId", first).param("amount", "10"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+
+        // Other users and other endpoints have their own buckets
+        mockMvc.perform(post("/api/membership/simulate-order").param("userId", second).param("amount", "10"))
+                .andExpect(status().isAccepted());
+        Assertions.assertEquals(shedBefore + 1,
+                meterRegistry.counter("membership.requests.shed", "reason", "rate").count());
+    }
+}
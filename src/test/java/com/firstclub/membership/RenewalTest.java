@@ -0,0 +1,105 @@
+package com.firstclub.membership;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.firstclub.membership.model.MembershipDuration;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.Subscription;
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.SubscriptionRepository;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.MembershipService;
+import com.firstclub.membership.service.RenewalJob;
+import com.firstclub.membership.service.SubscriptionExpiryJob;
+
+@SpringBootTest
+public class RenewalTest {
+
+    @Autowired
+    private MembershipService membershipService;
+
+    @Autowired
+    private RenewalJob renewalJob;
+
+    @Autowired
+    private SubscriptionExpiryJob expiryJob;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Test
+    void renewsOnTheEndDateAndIsNotExpiredMeanwhile() {
+        User user = userRepository.save(new User(null, "Renewing User", "renew@test.com", 0, 0.0, 0L));
+        Subscription sub = membershipService.subscribe(user.getId(), monthlyPlan(user.getId(), "Silver"));
+        membershipService.setAutoRenew(user.getId(), true);
+        LocalDate endDate = sub.getEndDate();
+
+        // Within the grace period the expiry sweep leaves it to the renewal queue
+        expiryJob.expireDue(endDate.plusDays(1));
+        Assertions.assertEquals(SubscriptionStatus.ACTIVE, reload(user).getStatus());
+
+        renewalJob.tick(endDate.atTime(23, 59));
+        Subscription renewed = reload(user);
+        Assertions.assertEquals(SubscriptionStatus.ACTIVE, renewed.getStatus());
+        Assertions.assertEquals(endDate, renewed.getStartDate());
+        Assertions.assertEquals(endDate.plusMonths(1), renewed.getEndDate());
+    }
+
+    @Test
+    void downgradesWhenTheUserNoLongerQualifies() {
+        User user = userRepository.save(new User(null, "Lapsing User", "lapse@test.com", 15, 600.0, 0L));
+        Subscription sub = membershipService.subscribe(user.getId(), monthlyPlan(user.getId(), "Gold"));
+        membershipService.setAutoRenew(user.getId(), true);
+
+        user = userRepository.findById(user.getId()).orElseThrow();
+        user.setTotalOrders(2);
+        user.setTotalSpent(50.0);
+        userRepository.save(user);
+
+        RenewalJob.Result result = renewalJob.tick(sub.getEndDate().atTime(23, 59));
+        Assertions.assertTrue(result.downgraded() >= 1);
+        Subscription renewed = reload(user);
+        Assertions.assertEquals("Silver", renewed.getPlan().getTier().getName());
+        Assertions.assertEquals(MembershipDuration.MONTHLY, renewed.getPlan().getDuration());
+        Assertions.assertEquals(sub.getEndDate().plusMonths(1), renewed.getEndDate());
+    }
+
+    @Test
+    void picksUpSubscriptionsThatBecomeDueLaterInTheDay() {
+        User early = userRepository.save(new User(null, "Early Renewal", "renew-early@test.com", 0, 0.0, 0L));
+        Subscription earlySub = membershipService.subscribe(early.getId(), monthlyPlan(early.getId(), "Silver"));
+        LocalDate endDate = earlySub.getEndDate();
+        renewalJob.tick(endDate.atTime(12, 0));
+
+        // Behind the scan cursor of the first tick, and a new row past it
+        membershipService.setAutoRenew(early.getId(), true);
+        User late = userRepository.save(new User(null, "Late Renewal", "renew-late@test.com", 0, 0.0, 0L));
+        membershipService.subscribe(late.getId(), monthlyPlan(late.getId(), "Silver"));
+        membershipService.setAutoRenew(late.getId(), true);
+
+        renewalJob.tick(endDate.atTime(23, 59));
+        Assertions.assertEquals(endDate.plusMonths(1), reload(early).getEndDate());
+        Assertions.assertEquals(endDate.plusMonths(1), reload(late).getEndDate());
+    }
+
+    private Long monthlyPlan(Long userId, String tier) {
+        return membershipService.getAvailablePlans(userId).stream()
+                .filter(p -> p.getTier().getName().equals(tier) && p.getDuration() == MembershipDuration.MONTHLY)
+                .map(Plan::getId)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private Subscription reload(User user) {
+        return subscriptionRepository.findByUser(userRepository.getReferenceById(user.getId())).orElseThrow();
+    }
+}
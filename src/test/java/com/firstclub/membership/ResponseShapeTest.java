@@ -0,0 +1,90 @@
+package com.firstclub.membership;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.firstclub.membership.dto.SubscriptionView;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.SubscriptionRepository;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.MembershipService;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:response-shape-test")
+@AutoConfigureMockMvc
+public class ResponseShapeTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MembershipService membershipService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Test
+    void subscriptionViewIsProjectedFlat() throws Exception {
+        Long userId = userRepository.save(new User(null, "Shape User", "shape@test.com", 0, 0.0, 0L)).getId();
+        Plan plan = membershipService.getAvailablePlans(userId).get(0);
+        membershipService.subscribe(userId, plan.getId());
+
+        SubscriptionView view = subscriptionRepository.findViewByUserId(userId).orElseThrow();
+        Assertions.assertEquals(userId, view.userId());
+        Assertions.assertEquals(plan.getId(), view.planId());
+        Assertions.assertEquals(plan.getPlanName(), view.planName());
+        Assertions.assertEquals(plan.getTier().getId(), view.tierId());
+        Assertions.assertEquals(plan.getTier().getName(), view.tierName());
+        Assertions.assertEquals(SubscriptionStatus.ACTIVE, view.status());
+
+        JsonNode json = read("/api/membership/current/" + userId);
+        // No pending plan, and nulls are left out
+        Assertions.assertEquals(Set.of("subscriptionId", "userId", "planId", "planName", "tierId", "tierName",
+                "startDate", "endDate", "status", "autoRenew"), fieldNames(json));
+        Assertions.assertEquals(plan.getPlanName(), json.get("planName").asText());
+        Assertions.assertTrue(json.get("startDate").isTextual());
+    }
+
+    @Test
+    void plansAreListedWithoutTheTierEntity() throws Exception {
+        Long userId = userRepository.save(new User(null, "Plans User", "shape-plans@test.com", 0, 0.0, 0L)).getId();
+
+        JsonNode json = read("/api/membership/plans/" + userId);
+        Assertions.assertTrue(json.isArray());
+        Assertions.assertEquals(membershipService.getAvailablePlans(userId).size(), json.size());
+        for (JsonNode plan : json) {
+            Assertions.assertEquals(Set.of("id", "planName", "tierId", "tierName", "duration", "price"),
+                    fieldNames(plan));
+        }
+    }
+
+    private JsonNode read(String uri) throws Exception {
+        return objectMapper.readTree(mockMvc.perform(get(uri)).andExpect(status().isOk()).andReturn()
+                .getResponse().getContentAsByteArray());
+    }
+
+    private static Set<String> fieldNames(JsonNode node) {
+        Set<String> names = new HashSet<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+}
@@ -0,0 +1,175 @@
+package com.firstclub.membership;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.firstclub.membership.model.MembershipDuration;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.firstclub.membership.model.Tier;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.PlanRepository;
+import com.firstclub.membership.repository.SubscriptionRepository;
+import com.firstclub.membership.repository.TierRepository;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.CatalogChangePoller;
+import com.firstclub.membership.service.MembershipAdminService;
+import com.firstclub.membership.service.MembershipService;
+import com.firstclub.membership.service.SubscriptionExpiryJob;
+import com.firstclub.membership.shard.ShardContext;
+import com.firstclub.membership.shard.ShardRouter;
+import com.firstclub.membership.shard.ShardSchemaInitializer;
+
+@SpringBootTest(properties = {
+        "membership.sharding.enabled=true",
+        "membership.sharding.urls=jdbc:h2:mem:shard-test-0;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:shard-test-1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard-test-2;DB_CLOSE_DELAY=-1"
+})
+public class ShardingTest {
+
+    @Autowired
+    private MembershipService membershipService;
+
+    @Autowired
+    private MembershipAdminService membershipAdminService;
+
+    @Autowired
+    private SubscriptionExpiryJob expiryJob;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private ShardSchemaInitializer shardSchemaInitializer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TierRepository tierRepository;
+
+    @Autowired
+    private PlanRepository planRepository;
+
+    @Autowired
+    private CatalogChangePoller catalogChangePoller;
+
+    @Test
+    void usersAndSubscriptionsStayOnTheirShard() {
+        Assertions.assertEquals(3, shardRouter.getShardCount());
+        long activeBefore = membershipAdminService.subscriptionStatusCounts().get(SubscriptionStatus.ACTIVE);
+
+        for (int shard = 0; shard < 3; shard++) {
+            Long userId = createUser(shard, "shard-" + shard + "@test.com");
+            Assertions.assertEquals(shard, shardRouter.shardFor(userId));
+
+            Long planId = membershipService.getAvailablePlans(userId).get(0).getId();
+            membershipService.subscribe(userId, planId);
+            Assertions.assertEquals(SubscriptionStatus.ACTIVE,
+                    membershipService.getCurrentSubscription(userId).status());
+
+            // Only the owning shard has the row
+            for (int other = 0; other < 3; other++) {
+                boolean present = ShardContext.callOn(other,
+                        () -> subscriptionRepository.findByUser(userRepository.getReferenceById(userId)).isPresent());
+                Assertions.assertEquals(other == shard, present);
+            }
+        }
+
+        Map<SubscriptionStatus, Long> counts = membershipAdminService.subscriptionStatusCounts();
+        Assertions.assertEquals(activeBefore + 3, counts.get(SubscriptionStatus.ACTIVE));
+    }
+
+    @Test
+    void expirySweepsEveryShard() {
+        Long first = createUser(1, "shard-expiry-1@test.com");
+        Long second = createUser(2, "shard-expiry-2@test.com");
+        membershipService.subscribe(first, membershipService.getAvailablePlans(first).get(0).getId());
+        membershipService.subscribe(second, membershipService.getAvailablePlans(second).get(0).getId());
+
+        // Monthly and yearly plans both end well within two years
+        Assertions.assertTrue(expiryJob.expireDue(LocalDate.now().plusYears(2)) >= 2);
+        Assertions.assertEquals(SubscriptionStatus.EXPIRED, statusOn(1, first));
+        Assertions.assertEquals(SubscriptionStatus.EXPIRED, statusOn(2, second));
+    }
+
+    @Test
+    void newUsersAreSpreadOverTheShards() {
+        Set<Integer> shards = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            Long userId = userRepository.save(new User(null, "New User", "shard-new-" + i + "@test.com", 0, 0.0, 0L))
+                    .getId();
+            int shard = shardRouter.shardFor(userId);
+            shards.add(shard);
+            Assertions.assertTrue(ShardContext.callOn(shard, () -> userRepository.existsById(userId)));
+        }
+        Assertions.assertEquals(Set.of(0, 1, 2), shards);
+    }
+
+    @Test
+    void schemaChangesReachEveryShard() {
+        ShardContext.runOn(2, () -> jdbcTemplate.execute("drop table subscription_history"));
+
+        shardSchemaInitializer.afterPropertiesSet();
+
+        Assertions.assertEquals(0, ShardContext.callOn(2,
+                () -> jdbcTemplate.queryForObject("select count(*) from subscription_history", Long.class)));
+    }
+
+    @Test
+    void catalogEditsReachEveryShard() {
+        Long userId = createUser(2, "shard-catalog@test.com");
+        Long planId = membershipService.getAvailablePlans(userId).get(0).getId();
+        membershipService.subscribe(userId, planId);
+        catalogChangePoller.poll();
+
+        // Edited on shard 0 only
+        Tier tier = planRepository.findById(planId).orElseThrow().getTier();
+        String name = tier.getName();
+        tier.setName(name + " Plus");
+        tierRepository.save(tier);
+        Plan added = planRepository.save(new Plan(null, tier, MembershipDuration.QUARTERLY, new BigDecimal("29.99")));
+        catalogChangePoller.poll();
+
+        try {
+            Assertions.assertEquals(name + " Plus", membershipService.getCurrentSubscription(userId).tierName());
+            for (int shard = 1; shard < 3; shard++) {
+                Assertions.assertEquals(new BigDecimal("29.99"), ShardContext.callOn(shard,
+                        () -> planRepository.findById(added.getId()).orElseThrow().getPrice()));
+            }
+            // The new plan can be used on a shard where it was never written
+            membershipService.cancelSubscription(userId);
+            membershipService.subscribe(userId, added.getId());
+            Assertions.assertEquals(added.getId(), membershipService.getCurrentSubscription(userId).planId());
+        } finally {
+            tier.setName(name);
+            tierRepository.save(tier);
+            catalogChangePoller.poll();
+        }
+    }
+
+    private SubscriptionStatus statusOn(int shard, Long userId) {
+        return ShardContext.callOn(shard, () -> subscriptionRepository
+                .findByUser(userRepository.getReferenceById(userId)).orElseThrow().getStatus());
+    }
+
+    private Long createUser(int shard, String email) {
+        return ShardContext.callOn(shard,
+                () -> userRepository.save(new User(null, "Shard User", email, 0, 0.0, 0L)).getId());
+    }
+}
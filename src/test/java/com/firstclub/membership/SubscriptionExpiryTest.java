@@ -0,0 +1,66 @@
+package com.firstclub.membership;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.firstclub.membership.model.Subscription;
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.SubscriptionRepository;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.MembershipService;
+import com.firstclub.membership.service.SubscriptionExpiryJob;
+
+@SpringBootTest
+public class SubscriptionExpiryTest {
+
+    @Autowired
+    private MembershipService membershipService;
+
+    @Autowired
+    private SubscriptionExpiryJob expiryJob;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Test
+    void expiresOnlyActiveSubscriptionsPastTheirEndDate() {
+        Long due = subscribeSilver("expiry-due@test.com");
+
+        Subscription dueSub = subscriptionRepository.findByUser(userRepository.getReferenceById(due)).orElseThrow();
+        LocalDate endDate = dueSub.getEndDate();
+
+        // Sweep as if it were the day after the first subscription ended
+        expiryJob.expireDue(endDate.plusDays(1));
+        Assertions.assertEquals(SubscriptionStatus.EXPIRED, statusOf(due));
+
+        // Already expired rows are not touched again
+        Assertions.assertEquals(0, expiryJob.expireDue(endDate.plusDays(1)));
+    }
+
+    @Test
+    void leavesSubscriptionsThatHaveNotEnded() {
+        Long userId = subscribeSilver("expiry-future@test.com");
+
+        expiryJob.expireDue(LocalDate.now());
+        Assertions.assertEquals(SubscriptionStatus.ACTIVE, statusOf(userId));
+    }
+
+    private Long subscribeSilver(String email) {
+        User user = userRepository.save(new User(null, "Expiry User", email, 0, 0.0, 0L));
+        Long planId = membershipService.getAvailablePlans(user.getId()).get(0).getId();
+        membershipService.subscribe(user.getId(), planId);
+        return user.getId();
+    }
+
+    private SubscriptionStatus statusOf(Long userId) {
+        return subscriptionRepository.findByUser(userRepository.getReferenceById(userId)).orElseThrow().getStatus();
+    }
+}
@@ -0,0 +1,79 @@
+package com.firstclub.membership;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.firstclub.membership.dto.SubscriptionHistoryEntry;
+import com.firstclub.membership.dto.SubscriptionHistoryPage;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.SubscriptionEventType;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.MembershipService;
+import com.firstclub.membership.service.SubscriptionHistoryService;
+
+@SpringBootTest
+public class SubscriptionHistoryTest {
+
+    @Autowired
+    private MembershipService membershipService;
+
+    @Autowired
+    private SubscriptionHistoryService subscriptionHistoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void everyChangeIsKeptAndPagedNewestFirst() {
+        Long userId = userRepository.save(new User(null, "History User", "history@test.com", 0, 0.0, 0L)).getId();
+        List<Plan> plans = membershipService.getAvailablePlans(userId);
+
+        membershipService.subscribe(userId, plans.get(0).getId());
+        membershipService.subscribe(userId, plans.get(1).getId());
+        membershipService.cancelSubscription(userId);
+
+        SubscriptionHistoryPage first = subscriptionHistoryService.history(userId, null, null, null, 2);
+        Assertions.assertEquals(List.of(SubscriptionEventType.CANCELLED, SubscriptionEventType.PLAN_CHANGED),
+                first.entries().stream().map(SubscriptionHistoryEntry::eventType).toList());
+        Assertions.assertNotNull(first.nextCursor());
+
+        SubscriptionHistoryPage second = subscriptionHistoryService.history(userId, first.nextCursor(), null, null, 2);
+        Assertions.assertEquals(1, second.entries().size());
+        Assertions.assertEquals(SubscriptionEventType.SUBSCRIBED, second.entries().get(0).eventType());
+        Assertions.assertEquals(plans.get(0).getId(), second.entries().get(0).planId());
+        Assertions.assertNull(second.nextCursor());
+
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        Assertions.assertTrue(subscriptionHistoryService.history(userId, null, tomorrow, null, 10).entries().isEmpty());
+    }
+
+    @Test
+    void primaryKeyLeadsWithThePartitionDay() {
+        List<String> columns = jdbcTemplate.queryForList("select k.column_name"
+                + " from information_schema.table_constraints c join information_schema.key_column_usage k"
+                + " on k.constraint_schema = c.constraint_schema and k.constraint_name = c.constraint_name"
+                + " where c.table_name = 'SUBSCRIPTION_HISTORY' and c.constraint_type = 'PRIMARY KEY'"
+                + " order by k.ordinal_position", String.class);
+        Assertions.assertEquals(List.of("RECORDED_ON", "ID"), columns);
+    }
+
+    @Test
+    void userIndexCoversTheHistoryPage() {
+        List<String> columns = jdbcTemplate.queryForList("select column_name from information_schema.index_columns"
+                + " where table_name = 'SUBSCRIPTION_HISTORY' and index_name = 'IDX_HISTORY_USER'"
+                + " order by ordinal_position", String.class);
+        Assertions.assertEquals(List.of("USER_ID", "ID", "RECORDED_ON"), columns.subList(0, 3));
+        Assertions.assertTrue(columns.containsAll(List.of("SUBSCRIPTION_ID", "EVENT_TYPE", "PLAN_ID", "TIER_ID",
+                "STATUS", "START_DATE", "END_DATE", "RECORDED_AT")), columns::toString);
+    }
+}
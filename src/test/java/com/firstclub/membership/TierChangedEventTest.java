@@ -0,0 +1,105 @@
+package com.firstclub.membership;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.firstclub.membership.event.TierChangedEvent;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.TierCatalog;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:tier-changed-event-test")
+public class TierChangedEventTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TierCatalog tierCatalog;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Recorder recorder;
+
+    @Test
+    void eventFiresOnceAfterTheNewTierIsCommitted() {
+        tierCatalog.snapshot();
+        Long userId = userRepository.save(new User(null, "Event User", "event@test.com", 0, 0.0, 0L)).getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = userRepository.findById(userId).orElseThrow();
+            user.setTotalOrders(12);
+            user.setTotalSpent(600.0);
+            userRepository.saveAndFlush(user);
+            Assertions.assertTrue(recorder.received(userId).isEmpty(), "published before commit");
+        });
+
+        List<Received> received = recorder.received(userId);
+        Assertions.assertEquals(1, received.size());
+        Assertions.assertEquals("Gold", received.get(0).event().toTierName());
+        Assertions.assertTrue(received.get(0).event().upgrade());
+        Assertions.assertEquals(received.get(0).event().toTierId(), received.get(0).storedTierId());
+    }
+
+    @Test
+    void rolledBackChangePublishesNothing() {
+        tierCatalog.snapshot();
+        Long userId = userRepository.save(new User(null, "Rollback User", "rollback@test.com", 0, 0.0, 0L)).getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = userRepository.findById(userId).orElseThrow();
+            user.setTotalOrders(12);
+            user.setTotalSpent(600.0);
+            userRepository.saveAndFlush(user);
+            status.setRollbackOnly();
+        });
+
+        Assertions.assertTrue(recorder.received(userId).isEmpty());
+    }
+
+    record Received(TierChangedEvent event, Long storedTierId) {
+    }
+
+    static class Recorder {
+
+        private final JdbcTemplate jdbcTemplate;
+        private final List<Received> events = new CopyOnWriteArrayList<>();
+
+        Recorder(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @EventListener
+        public void onTierChanged(TierChangedEvent event) {
+            // What a listener reading the database sees when the event arrives
+            Long stored = jdbcTemplate.queryForObject("select current_tier_id from users where id = ?", Long.class,
+                    event.userId());
+            events.add(new Received(event, stored));
+        }
+
+        List<Received> received(Long userId) {
+            return events.stream().filter(r -> r.event().userId().equals(userId)).toList();
+        }
+    }
+
+    @TestConfiguration
+    static class RecorderConfig {
+
+        @Bean
+        Recorder recorder(JdbcTemplate jdbcTemplate) {
+            return new Recorder(jdbcTemplate);
+        }
+    }
+}
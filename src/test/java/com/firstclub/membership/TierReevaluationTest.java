@@ -0,0 +1,59 @@
+package com.firstclub.membership;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.firstclub.membership.dto.TierReevaluationReport;
+import com.firstclub.membership.model.Tier;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.TierRepository;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.TierCatalog;
+import com.firstclub.membership.service.TierReevaluationService;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:tier-reevaluation-test",
+        "membership.tier-reevaluation.page-size=2"
+})
+public class TierReevaluationTest {
+
+    @Autowired
+    private TierReevaluationService tierReevaluationService;
+
+    @Autowired
+    private TierCatalog tierCatalog;
+
+    @Autowired
+    private TierRepository tierRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void raisedThresholdIsReportedByDryRunAndAppliedByRealRun() {
+        tierCatalog.snapshot();
+        Long gold = tierRepository.findAll().stream().filter(t -> t.getName().equals("Gold")).findFirst()
+                .orElseThrow().getId();
+        Long first = userRepository.save(new User(null, "Reeval One", "reeval-1@test.com", 15, 600.0, 0L)).getId();
+        Long second = userRepository.save(new User(null, "Reeval Two", "reeval-2@test.com", 15, 800.0, 0L)).getId();
+        Assertions.assertEquals(gold, userRepository.findById(first).orElseThrow().getCurrentTierId());
+
+        Tier goldTier = tierRepository.findById(gold).orElseThrow();
+        goldTier.setMinTotalSpent(700.0);
+        tierRepository.save(goldTier);
+
+        TierReevaluationReport dryRun = tierReevaluationService.reevaluate(true);
+        Assertions.assertEquals(1, dryRun.downgrades());
+        Assertions.assertEquals(1L, dryRun.transitions().get("Gold -> Silver"));
+        Assertions.assertTrue(dryRun.usersScanned() >= 2);
+        Assertions.assertEquals(gold, userRepository.findById(first).orElseThrow().getCurrentTierId());
+
+        TierReevaluationReport applied = tierReevaluationService.reevaluate(false);
+        Assertions.assertEquals(dryRun.transitions(), applied.transitions());
+        Assertions.assertNotEquals(gold, userRepository.findById(first).orElseThrow().getCurrentTierId());
+        Assertions.assertEquals(gold, userRepository.findById(second).orElseThrow().getCurrentTierId());
+        Assertions.assertEquals(0, tierReevaluationService.reevaluate(true).usersChanged());
+    }
+}
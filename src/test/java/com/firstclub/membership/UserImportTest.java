@@ -0,0 +1,97 @@
+package com.firstclub.membership;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.firstclub.membership.dto.ImportResult;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.SubscriptionRepository;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.MembershipService;
+import com.firstclub.membership.service.TierCatalog;
+import com.firstclub.membership.service.UserImportService;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:import-test",
+        "membership.import.dir=target/import-test",
+        "membership.import.chunk-size=100",
+        "membership.import.read-buffer-bytes=512"
+})
+public class UserImportTest {
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private MembershipService membershipService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private TierCatalog tierCatalog;
+
+    @Test
+    void importsCsvInChunksAndDoesNotRepeatACompletedFile() throws Exception {
+        List<Plan> silverPlans = membershipService.getAvailablePlans(1L);
+        Long silverPlan = silverPlans.get(0).getId();
+
+        StringBuilder csv = new StringBuilder("name,email,total_orders,total_spent,cohort,plan_id\n");
+        for (int i = 0; i < 250; i++) {
+            csv.append("User ").append(i).append(",import-").append(i).append("@test.com,")
+                    .append(i % 20).append(',').append(i * 5).append(",,")
+                    .append(i % 2 == 0 ? silverPlan : "").append('\n');
+        }
+        csv.append("\"Quoted, Name\",import-gold@test.com,15,600.0,,\n");
+        csv.append("Broken,import-broken@test.com,not-a-number,1,,\n");
+        Path dir = Files.createDirectories(Path.of("target/import-test"));
+        Files.writeString(dir.resolve("users.csv"), csv);
+
+        ImportResult result = userImportService.importFile("users.csv", null, true);
+        Assertions.assertTrue(result.completed());
+        Assertions.assertEquals(252, result.rowsRead());
+        Assertions.assertEquals(1, result.rowsSkipped());
+        Assertions.assertEquals(251, result.usersImported());
+        Assertions.assertEquals(125, result.subscriptionsImported());
+
+        User gold = userRepository.findByEmail("import-gold@test.com").orElseThrow();
+        Assertions.assertEquals("Quoted, Name", gold.getName());
+        Assertions.assertEquals("Gold", tierCatalog.snapshot().tierAt(
+                tierCatalog.snapshot().indexOf(gold.getCurrentTierId())).getName());
+        User subscribed = userRepository.findByEmail("import-0@test.com").orElseThrow();
+        Assertions.assertEquals(SubscriptionStatus.ACTIVE,
+                subscriptionRepository.findByUser(subscribed).orElseThrow().getStatus());
+
+        // Ids handed out by the importer do not collide with JPA inserts
+        membershipService.subscribe(gold.getId(), silverPlan);
+
+        ImportResult again = userImportService.importFile("users.csv", null, false);
+        Assertions.assertEquals(251, again.usersImported());
+        Assertions.assertEquals(1, userRepository.findAll().stream()
+                .filter(u -> "import-0@test.com".equals(u.getEmail())).count());
+    }
+
+    @Test
+    void importsNdjson() throws Exception {
+        Path dir = Files.createDirectories(Path.of("target/import-test"));
+        Files.writeString(dir.resolve("users.ndjson"),
+                "{\"name\":\"Json User\",\"email\":\"import-json@test.com\",\"totalOrders\":60,\"totalSpent\":2500}\n"
+                        + "{\"email\":\"import-json-2@test.com\"}\n");
+
+        ImportResult result = userImportService.importFile("users.ndjson", null, true);
+        Assertions.assertEquals(2, result.usersImported());
+        User user = userRepository.findByEmail("import-json@test.com").orElseThrow();
+        Assertions.assertEquals(60, user.getTotalOrders());
+    }
+}
@@ -0,0 +1,81 @@
+package com.firstclub.membership;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.firstclub.membership.dto.SubscriptionView;
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.firstclub.membership.model.User;
+import com.firstclub.membership.repository.UserRepository;
+import com.firstclub.membership.service.MembershipService;
+import com.firstclub.membership.service.PlanCatalog;
+import com.firstclub.membership.service.SubscriptionCache;
+import com.firstclub.membership.service.TierCatalog;
+import com.firstclub.membership.service.WarmStartSnapshot;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:warm-start-test",
+        "membership.warm-start.enabled=true",
+        "membership.warm-start.file=target/warm-start-test.bin",
+        "membership.warm-start.write-interval-ms=3600000"
+})
+public class WarmStartTest {
+
+    @Autowired
+    private WarmStartSnapshot warmStartSnapshot;
+
+    @Autowired
+    private MembershipService membershipService;
+
+    @Autowired
+    private SubscriptionCache subscriptionCache;
+
+    @Autowired
+    private TierCatalog tierCatalog;
+
+    @Autowired
+    private PlanCatalog planCatalog;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void catalogAndCachedSubscriptionsSurviveARestart() throws Exception {
+        Long userId = userRepository.save(new User(null, "Warm User", "warm@test.com", 0, 0.0, 0L)).getId();
+        membershipService.subscribe(userId, membershipService.getAvailablePlans(userId).get(0).getId());
+        SubscriptionView cached = membershipService.getCurrentSubscription(userId);
+        Long changedId = userRepository.save(new User(null, "Changed User", "warm-changed@test.com", 0, 0.0, 0L))
+                .getId();
+        membershipService.subscribe(changedId, membershipService.getAvailablePlans(changedId).get(0).getId());
+        membershipService.getCurrentSubscription(changedId);
+        int planCount = planCatalog.snapshot().plans().size();
+        warmStartSnapshot.write();
+
+        // Another node cancels after the file was written
+        jdbcTemplate.update("update subscription set status = 'CANCELLED' where user_id = ?", changedId);
+
+        // What a fresh start sees: nothing built, nothing cached
+        subscriptionCache.invalidate(userId);
+        subscriptionCache.invalidate(changedId);
+        tierCatalog.invalidate();
+        planCatalog.invalidate();
+        warmStartSnapshot.afterSingletonsInstantiated();
+
+        Assertions.assertEquals(planCount, planCatalog.snapshot().plans().size());
+        Assertions.assertEquals(cached, subscriptionCache.get(userId, id -> {
+            throw new AssertionError("Subscription should have been served from the warm-start snapshot");
+        }).orElseThrow());
+        Assertions.assertEquals(SubscriptionStatus.CANCELLED,
+                membershipService.getCurrentSubscription(changedId).status());
+        Files.deleteIfExists(Path.of("target/warm-start-test.bin"));
+    }
+}
@@ -0,0 +1,106 @@
+package com.firstclub.membership.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.firstclub.membership.dto.PlanChangeQuote;
+import com.firstclub.membership.dto.SubscriptionView;
+import com.firstclub.membership.model.MembershipDuration;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.PlanChangeKind;
+import com.firstclub.membership.model.Subscription;
+import com.firstclub.membership.model.SubscriptionEventType;
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.firstclub.membership.model.Tier;
+
+public class PlanChangeServiceTest {
+
+    private final Tier silver = new Tier(1L, "Silver", 0, 0.0, null, Map.of());
+    private final Tier gold = new Tier(2L, "Gold", 10, 500.0, null, Map.of());
+    private final Plan silverMonthly = new Plan(10L, silver, MembershipDuration.MONTHLY, new BigDecimal("9.99"));
+    private final Plan silverYearly = new Plan(11L, silver, MembershipDuration.YEARLY, new BigDecimal("99.99"));
+    private final Plan goldMonthly = new Plan(20L, gold, MembershipDuration.MONTHLY, new BigDecimal("30.00"));
+
+    private final PlanSnapshot catalog = PlanSnapshot.build(TierSnapshot.build(1, List.of(silver, gold)),
+            List.of(silverMonthly, silverYearly, goldMonthly), new ObjectMapper());
+    private final PlanChangeService service = new PlanChangeService();
+    private final LocalDate today = LocalDate.of(2026, 3, 1);
+
+    @Test
+    void upgradeCreditsUnusedDaysAtTheDailyRate() {
+        PlanChangeQuote quote = service.quote(catalog, active(goldMonthly, today.plusDays(10)), goldMonthly, today);
+        Assertions.assertEquals(PlanChangeKind.NONE, quote.kind());
+
+        quote = service.quote(catalog, active(silverMonthly, today.plusDays(15)), goldMonthly, today);
+        Assertions.assertEquals(PlanChangeKind.UPGRADE, quote.kind());
+        Assertions.assertEquals(15, quote.remainingDays());
+        // 9.99 / 30 * 15
+        Assertions.assertEquals(new BigDecimal("5.00"), quote.credit());
+        Assertions.assertEquals(new BigDecimal("25.00"), quote.amountDue());
+        Assertions.assertEquals(today, quote.effectiveDate());
+        Assertions.assertEquals(today.plusMonths(1), quote.newEndDate());
+    }
+
+    @Test
+    void creditNeverExceedsWhatWasPaid() {
+        PlanChangeQuote quote = service.quote(catalog, active(silverMonthly, today.plusDays(31)), silverYearly,
+                today);
+
+        Assertions.assertEquals(PlanChangeKind.SWITCH, quote.kind());
+        Assertions.assertEquals(new BigDecimal("9.99"), quote.credit());
+        Assertions.assertEquals(new BigDecimal("90.00"), quote.amountDue());
+    }
+
+    @Test
+    void creditAboveTheNewPriceExtendsTheNewPeriod() {
+        PlanChangeQuote quote = service.quote(catalog, active(silverYearly, today.plusDays(200)), silverMonthly,
+                today);
+
+        Assertions.assertEquals(PlanChangeKind.SWITCH, quote.kind());
+        // 99.99 / 365 * 200
+        Assertions.assertEquals(new BigDecimal("54.79"), quote.credit());
+        Assertions.assertEquals(BigDecimal.ZERO.setScale(2), quote.amountDue());
+        // 44.80 left over buys 134 days at 9.99 / 30
+        Assertions.assertEquals(today.plusMonths(1).plusDays(134), quote.newEndDate());
+    }
+
+    @Test
+    void downgradeIsScheduledForTheEndOfThePeriod() {
+        LocalDate endDate = today.plusDays(20);
+        PlanChangeQuote quote = service.quote(catalog, active(goldMonthly, endDate), silverMonthly, today);
+
+        Assertions.assertEquals(PlanChangeKind.DOWNGRADE, quote.kind());
+        Assertions.assertEquals(BigDecimal.ZERO.setScale(2), quote.amountDue());
+        Assertions.assertEquals(endDate, quote.effectiveDate());
+        Assertions.assertEquals(endDate.plusMonths(1), quote.newEndDate());
+
+        // Scheduling leaves auto-renew as the user set it
+        Subscription subscription = new Subscription();
+        subscription.setPlan(goldMonthly);
+        Assertions.assertEquals(SubscriptionEventType.PLAN_CHANGE_SCHEDULED,
+                service.apply(subscription, quote, silverMonthly));
+        Assertions.assertEquals(silverMonthly.getId(), subscription.getPendingPlanId());
+        Assertions.assertEquals(goldMonthly, subscription.getPlan());
+        Assertions.assertFalse(subscription.isAutoRenew());
+    }
+
+    @Test
+    void lapsedSubscriptionPaysFullPrice() {
+        PlanChangeQuote quote = service.quote(catalog, active(goldMonthly, today), silverMonthly, today);
+
+        Assertions.assertEquals(PlanChangeKind.NEW, quote.kind());
+        Assertions.assertEquals(new BigDecimal("9.99"), quote.amountDue());
+        Assertions.assertEquals(PlanChangeKind.NEW, service.quote(catalog, null, goldMonthly, today).kind());
+    }
+
+    private SubscriptionView active(Plan plan, LocalDate endDate) {
+        return new SubscriptionView(1L, 1L, plan.getId(), plan.getPlanName(), plan.getTier().getId(),
+                plan.getTier().getName(), endDate.minusMonths(1), endDate, SubscriptionStatus.ACTIVE, false, null);
+    }
+}
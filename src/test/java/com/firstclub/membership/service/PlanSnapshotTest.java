@@ -0,0 +1,96 @@
+package com.firstclub.membership.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.firstclub.membership.model.MembershipDuration;
+import com.firstclub.membership.model.Plan;
+import com.firstclub.membership.model.Tier;
+import com.firstclub.membership.repository.PlanRepository;
+
+public class PlanSnapshotTest {
+
+    private final Tier silver = new Tier(1L, "Silver", 0, 0.0, null, Map.of());
+    private final Tier gold = new Tier(2L, "Gold", 10, 500.0, null, Map.of());
+    private final Plan silverMonthly = new Plan(10L, silver, MembershipDuration.MONTHLY, new BigDecimal("9.99"));
+    private final Plan goldMonthly = new Plan(20L, gold, MembershipDuration.MONTHLY, new BigDecimal("30.00"));
+    private final Plan goldYearly = new Plan(21L, gold, MembershipDuration.YEARLY, new BigDecimal("300.00"));
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final TierCatalog tierCatalog = Mockito.mock(TierCatalog.class);
+    private final PlanRepository planRepository = Mockito.mock(PlanRepository.class);
+
+    @Test
+    void plansAreGroupedByTierRankWithLowerTiersIncluded() throws Exception {
+        PlanSnapshot snapshot = PlanSnapshot.build(TierSnapshot.build(1, List.of(gold, silver)),
+                List.of(goldYearly, silverMonthly, goldMonthly), objectMapper);
+
+        Assertions.assertEquals(List.of(silverMonthly), snapshot.plansFor(0));
+        Assertions.assertEquals(List.of(goldYearly, silverMonthly, goldMonthly), snapshot.plansFor(1));
+        Assertions.assertSame(goldYearly, snapshot.plan(21L));
+        Assertions.assertNull(snapshot.plan(99L));
+        // 30.00 / 30 days
+        Assertions.assertEquals(new BigDecimal("1.000000"), snapshot.dailyRate(20L));
+
+        JsonNode json = objectMapper.readTree(snapshot.plansJsonFor(0));
+        Assertions.assertEquals(1, json.size());
+        Assertions.assertEquals(10L, json.get(0).get("id").asLong());
+        Assertions.assertEquals("Silver", json.get(0).get("tierName").asText());
+        Assertions.assertEquals("MONTHLY", json.get(0).get("duration").asText());
+    }
+
+    @Test
+    void catalogIsRebuiltWhenTheTierSnapshotChanges() {
+        TierSnapshot first = TierSnapshot.build(1, List.of(silver, gold));
+        TierSnapshot second = TierSnapshot.build(2, List.of(silver, gold));
+        Mockito.when(tierCatalog.snapshot()).thenReturn(first, first, second);
+        Mockito.when(planRepository.findAll()).thenReturn(List.of(silverMonthly, goldMonthly));
+        PlanCatalog catalog = planCatalog();
+
+        PlanSnapshot built = catalog.snapshot();
+        Assertions.assertSame(built, catalog.snapshot());
+        PlanSnapshot rebuilt = catalog.snapshot();
+        Assertions.assertNotSame(built, rebuilt);
+        Assertions.assertSame(second, rebuilt.getTiers());
+        Mockito.verify(planRepository, Mockito.times(2)).findAll();
+    }
+
+    @Test
+    void invalidationWaitsForTheCommit() {
+        Mockito.when(tierCatalog.snapshot()).thenReturn(TierSnapshot.build(1, List.of(silver, gold)));
+        Mockito.when(planRepository.findAll()).thenReturn(List.of(silverMonthly));
+        PlanCatalog catalog = planCatalog();
+        PlanSnapshot built = catalog.snapshot();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            catalog.invalidateAfterCommit();
+            // Uncommitted catalog rows must not be read yet
+            Assertions.assertSame(built, catalog.snapshot());
+
+            Mockito.when(planRepository.findAll()).thenReturn(List.of(silverMonthly, goldMonthly));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Assertions.assertEquals(2, catalog.snapshot().plans().size());
+    }
+
+    private PlanCatalog planCatalog() {
+        PlanCatalog catalog = new PlanCatalog();
+        ReflectionTestUtils.setField(catalog, "tierCatalog", tierCatalog);
+        ReflectionTestUtils.setField(catalog, "planRepository", planRepository);
+        ReflectionTestUtils.setField(catalog, "objectMapper", objectMapper);
+        return catalog;
+    }
+}
@@ -0,0 +1,125 @@
+package com.firstclub.membership.service;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.firstclub.membership.dto.SubscriptionView;
+import com.firstclub.membership.model.SubscriptionStatus;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SubscriptionCacheTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final SubscriptionCache cache = new SubscriptionCache(registry, 2, 600);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void missLoadsOnceAndHitsAreServedFromMemory() {
+        Function<Long, Optional<SubscriptionView>> loader = loader(SubscriptionStatus.ACTIVE);
+
+        Assertions.assertEquals(SubscriptionStatus.ACTIVE, cache.get(1L, loader).orElseThrow().status());
+        Assertions.assertEquals(SubscriptionStatus.ACTIVE, cache.get(1L, loader).orElseThrow().status());
+        Assertions.assertTrue(cache.get(2L, userId -> Optional.empty()).isEmpty());
+        Assertions.assertTrue(cache.get(2L, userId -> Optional.empty()).isEmpty());
+
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(2.0, gets("hit"));
+        Assertions.assertEquals(2.0, gets("miss"));
+    }
+
+    @Test
+    void evictionsAreCountedWhenTheCacheIsFull() {
+        for (long userId = 1; userId <= 5; userId++) {
+            cache.get(userId, loader(SubscriptionStatus.ACTIVE));
+        }
+        ((Cache<?, ?>) ReflectionTestUtils.getField(cache, "cache")).cleanUp();
+
+        Assertions.assertEquals(3.0, registry.get("cache.evictions").tag("cache", "subscriptions")
+                .functionCounter().count());
+        Assertions.assertEquals(2.0, registry.get("cache.size").tag("cache", "subscriptions").gauge().value());
+    }
+
+    @Test
+    void committedCancelIsNeverFollowedByACachedActiveView() {
+        cache.get(1L, loader(SubscriptionStatus.ACTIVE));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.writeThroughAfterCommit(1L, () -> view(SubscriptionStatus.CANCELLED));
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.beforeCommit(false));
+            // Committing: readers go to the database instead of the cached ACTIVE view
+            Assertions.assertEquals(SubscriptionStatus.CANCELLED,
+                    cache.get(1L, loader(SubscriptionStatus.CANCELLED)).orElseThrow().status());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Served from the cache, whatever a late loader would have returned
+        Assertions.assertEquals(SubscriptionStatus.CANCELLED,
+                cache.get(1L, loader(SubscriptionStatus.ACTIVE)).orElseThrow().status());
+    }
+
+    @Test
+    void rolledBackWriteLeavesNothingCached() {
+        cache.get(1L, loader(SubscriptionStatus.ACTIVE));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.writeThroughAfterCommit(1L, () -> view(SubscriptionStatus.CANCELLED));
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.beforeCommit(false));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        int before = loads.get();
+        Assertions.assertEquals(SubscriptionStatus.ACTIVE,
+                cache.get(1L, loader(SubscriptionStatus.ACTIVE)).orElseThrow().status());
+        Assertions.assertEquals(before + 1, loads.get());
+    }
+
+    @Test
+    void activeViewPastItsEndIsReloaded() {
+        // Cached yesterday, before the expiry sweep ran
+        cache.writeThroughAfterCommit(1L, () -> view(SubscriptionStatus.ACTIVE, LocalDate.now().minusDays(1)));
+
+        Assertions.assertEquals(SubscriptionStatus.EXPIRED,
+                cache.get(1L, loader(SubscriptionStatus.EXPIRED)).orElseThrow().status());
+        Assertions.assertEquals(1, loads.get());
+    }
+
+    private Function<Long, Optional<SubscriptionView>> loader(SubscriptionStatus status) {
+        return userId -> {
+            loads.incrementAndGet();
+            return Optional.of(view(status));
+        };
+    }
+
+    private double gets(String result) {
+        return registry.get("cache.gets").tag("cache", "subscriptions").tag("result", result).functionCounter()
+                .count();
+    }
+
+    private static SubscriptionView view(SubscriptionStatus status) {
+        return view(status, LocalDate.now().plusMonths(1));
+    }
+
+    private static SubscriptionView view(SubscriptionStatus status, LocalDate endDate) {
+        return new SubscriptionView(100L, 1L, 10L, "Silver MONTHLY", 1L, "Silver", LocalDate.now(), endDate, status,
+                false, null);
+    }
+}
@@ -0,0 +1,109 @@
+package com.firstclub.membership.service;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.firstclub.membership.dto.Benefits;
+import com.firstclub.membership.model.DeliveryClass;
+import com.firstclub.membership.model.SupportPriority;
+import com.firstclub.membership.model.Tier;
+
+public class TierSnapshotTest {
+
+    private final Tier silver = new Tier(1L, "Silver", 0, 0.0, null, Map.of());
+    private final Tier gold = new Tier(2L, "Gold", 10, 500.0, null, Map.of());
+    private final Tier student = new Tier(3L, "Student", 0, 100.0, "STUDENT", Map.of());
+    private final Tier platinum = new Tier(4L, "Platinum", 50, 2000.0, "", Map.of());
+    // Cohort dictionary: STUDENT is bit 0, VIP bit 1
+    private static final long STUDENT = 1L;
+    private static final long VIP = 1L << 1;
+
+    private static int cohortId(String name) {
+        return "student".equalsIgnoreCase(name) ? 0 : "vip".equalsIgnoreCase(name) ? 1 : -1;
+    }
+
+    @Test
+    void picksHighestTierWhoseCriteriaAreMet() {
+        TierSnapshot snapshot = TierSnapshot.build(1, List.of(platinum, gold, silver, student),
+                TierSnapshotTest::cohortId);
+
+        Assertions.assertEquals("Silver", snapshot.tierAt(snapshot.eligibleIndex(0, 0.0, 0L)).getName());
+        Assertions.assertEquals("Gold", snapshot.tierAt(snapshot.eligibleIndex(15, 600.0, 0L)).getName());
+        // Enough spend but too few orders for Gold
+        Assertions.assertEquals("Silver", snapshot.tierAt(snapshot.eligibleIndex(5, 600.0, 0L)).getName());
+        Assertions.assertEquals("Platinum", snapshot.tierAt(snapshot.eligibleIndex(60, 2500.0, VIP)).getName());
+    }
+
+    @Test
+    void cohortRestrictedTierOnlyMatchesItsCohort() {
+        TierSnapshot snapshot = TierSnapshot.build(1, List.of(silver, gold, student), TierSnapshotTest::cohortId);
+
+        Assertions.assertEquals("Student", snapshot.tierAt(snapshot.eligibleIndex(1, 150.0, STUDENT)).getName());
+        Assertions.assertEquals("Student", snapshot.tierAt(snapshot.eligibleIndex(1, 150.0, STUDENT | VIP)).getName());
+        Assertions.assertEquals("Silver", snapshot.tierAt(snapshot.eligibleIndex(1, 150.0, VIP)).getName());
+        Assertions.assertEquals("Silver", snapshot.tierAt(snapshot.eligibleIndex(1, 150.0, 0L)).getName());
+    }
+
+    @Test
+    void unknownRequiredCohortFailsTheBuild() {
+        Assertions.assertThrows(RuntimeException.class, () -> TierSnapshot.build(1, List.of(silver, student)));
+    }
+
+    @Test
+    void ranksByRequiredSpendAndIndexesById() {
+        TierSnapshot snapshot = TierSnapshot.build(7, List.of(platinum, gold, silver));
+
+        Assertions.assertEquals(7, snapshot.getVersion());
+        Assertions.assertEquals(0, snapshot.indexOf(1L));
+        Assertions.assertEquals(1, snapshot.indexOf(2L));
+        Assertions.assertEquals(2, snapshot.indexOf(4L));
+        Assertions.assertEquals(-1, snapshot.indexOf(99L));
+    }
+
+    @Test
+    void storedTierIsKeptUntilABoundaryIsCrossed() {
+        TierSnapshot snapshot = TierSnapshot.build(1, List.of(silver, gold, platinum));
+        int goldRank = snapshot.indexOf(2L);
+
+        Assertions.assertFalse(snapshot.mayHaveCrossed(goldRank, 20, 900.0, 0L));
+        Assertions.assertTrue(snapshot.mayHaveCrossed(goldRank, 60, 2100.0, 0L)); // may reach Platinum
+        Assertions.assertTrue(snapshot.mayHaveCrossed(goldRank, 5, 900.0, 0L)); // no longer meets Gold
+        Assertions.assertEquals(goldRank, snapshot.currentIndex(2L, 20, 900.0, 0L));
+        Assertions.assertEquals(snapshot.indexOf(4L), snapshot.currentIndex(2L, 60, 2100.0, 0L));
+        Assertions.assertEquals(goldRank, snapshot.currentIndex(null, 20, 900.0, 0L));
+    }
+
+    @Test
+    void emptySnapshotHasNoBaseTier() {
+        TierSnapshot snapshot = TierSnapshot.build(1, List.of());
+
+        Assertions.assertThrows(RuntimeException.class, () -> snapshot.eligibleIndex(0, 0.0, 0L));
+    }
+
+    @Test
+    void benefitsAreCompiledIntoTypedValues() {
+        Tier vip = new Tier(5L, "Vip", 0, 3000.0, null,
+                Map.of("DISCOUNT", "12.5%", "DELIVERY", "free_all", "SUPPORT", "PRIORITY"));
+        TierSnapshot snapshot = TierSnapshot.build(1, List.of(silver, vip));
+
+        Benefits benefits = snapshot.benefitsOf(5L);
+        Assertions.assertEquals(1250, benefits.discountBasisPoints());
+        Assertions.assertEquals(DeliveryClass.FREE_ALL, benefits.delivery());
+        Assertions.assertEquals(SupportPriority.PRIORITY, benefits.support());
+        Assertions.assertEquals(125, benefits.discountCents(1000));
+        // Missing keys fall back to the defaults, unknown tiers have none
+        Assertions.assertEquals(0, snapshot.benefitsOf(1L).discountBasisPoints());
+        Assertions.assertSame(Benefits.NONE, snapshot.benefitsOf(99L));
+        Assertions.assertSame(benefits, snapshot.benefitsAt(snapshot.indexOf(5L)));
+    }
+
+    @Test
+    void invalidBenefitValuesFailTheBuild() {
+        Tier broken = new Tier(6L, "Broken", 0, 10.0, null, Map.of("DISCOUNT", "lots"));
+
+        Assertions.assertThrows(RuntimeException.class, () -> TierSnapshot.build(1, List.of(silver, broken)));
+    }
+}
@@ -0,0 +1,33 @@
+package com.firstclub.membership.shard;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ShardRouterTest {
+
+    @Test
+    void singleShardRunsOnShardZeroAndKeepsNullResults() {
+        ShardRouter router = new ShardRouter(false, "");
+
+        Assertions.assertEquals(1, router.getShardCount());
+        Assertions.assertEquals(0, router.shardFor(42L));
+        Assertions.assertEquals(List.of(0), router.onEachShard(shard -> shard));
+        Assertions.assertEquals(Arrays.asList((Object) null), router.onEachShard(shard -> null));
+    }
+
+    @Test
+    void multipleShardsKeepShardOrderAndNullResults() {
+        ShardRouter router = new ShardRouter(true, "jdbc:a, jdbc:b,jdbc:c");
+        try {
+            Assertions.assertEquals(3, router.getShardCount());
+            Assertions.assertEquals(List.of(0, 1, 2), router.onEachShard(shard -> shard));
+            Assertions.assertEquals(Arrays.asList(null, 1, null),
+                    router.onEachShard(shard -> shard == 1 ? 1 : null));
+        } finally {
+            router.shutdown();
+        }
+    }
+}